@@ -0,0 +1,150 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.jsonjava;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import org.netbeans.html.json.spi.JSONWriter;
+
+/** Parsed JSON object. Keeps values in an array and finds them by
+ * a hash probe into its {@link Shape}. Objects with the same
+ * properties in the same order - typically elements of an array -
+ * share a single shape.
+ *
+ * @author Jaroslav Tulach
+ */
+final class JSONObject {
+    final Shape shape;
+    final Object[] values;
+
+    JSONObject(Shape shape, Object[] values) {
+        assert shape.names.length == values.length;
+        this.shape = shape;
+        this.values = values;
+    }
+
+    Object get(String name) {
+        int at = shape.find(name);
+        return at == -1 ? null : values[at];
+    }
+
+    /** Writes the object back as JSON text. Used when the received
+     * object is requested as a {@link String}.
+     *
+     * @return JSON representation of the object
+     */
+    @Override
+    public String toString() {
+        StringWriter w = new StringWriter();
+        JSONWriter out = new JSONWriter(w);
+        try {
+            out.beginObject();
+            for (int i = 0; i < values.length; i++) {
+                out.name(shape.names[i]);
+                out.value(values[i]);
+            }
+            out.endObject();
+            out.flush();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+        return w.toString();
+    }
+
+    /** Names of properties and an open addressing hash index into them.
+     */
+    static final class Shape {
+        final String[] names;
+        private final int[] index;
+
+        Shape(String[] names) {
+            int size = 4;
+            while (size < names.length * 2) {
+                size <<= 1;
+            }
+            this.names = names;
+            this.index = new int[size];
+            for (int i = 0; i < names.length; i++) {
+                int slot = hash(names[i]) & (size - 1);
+                for (;;) {
+                    int at = index[slot];
+                    if (at == 0 || names[at - 1].equals(names[i])) {
+                        // later duplicates win, as in JavaScript
+                        index[slot] = i + 1;
+                        break;
+                    }
+                    slot = (slot + 1) & (size - 1);
+                }
+            }
+        }
+
+        /** Finds position of given property.
+         * @param name the name of the property
+         * @return index into values of the object or <code>-1</code>
+         */
+        int find(String name) {
+            int mask = index.length - 1;
+            int slot = hash(name) & mask;
+            for (;;) {
+                int at = index[slot];
+                if (at == 0) {
+                    return -1;
+                }
+                String n = names[at - 1];
+                if (n == name || n.equals(name)) {
+                    return at - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        boolean hasName(int at, String name) {
+            return at < names.length && names[at].equals(name);
+        }
+
+        private static int hash(String name) {
+            int h = name.hashCode();
+            return h ^ (h >>> 16);
+        }
+    }
+}
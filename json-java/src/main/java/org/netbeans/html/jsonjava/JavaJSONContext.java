@@ -0,0 +1,120 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.jsonjava;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import net.java.html.json.OnReceive;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.JSONCall;
+import org.netbeans.html.json.spi.Transfer;
+import org.netbeans.html.json.spi.WSTransfer;
+import org.openide.util.lookup.ServiceProvider;
+
+/** Implementation module that handles JSON in plain Java.
+ * Parses the received data by a streaming Java parser into a compact
+ * representation with indexed access to its properties, connects
+ * to the {@link OnReceive} URLs via {@link java.net.URLConnection}
+ * and speaks the WebSocket protocol over a plain {@link java.net.Socket}.
+ * No JavaScript engine is needed, so the module is suitable
+ * for servers, tests and other headless environments.
+ * <p>
+ * Registers {@link Transfer} and {@link WSTransfer} technologies
+ * at position <code>500</code> - e.g. after the browser based ones,
+ * but before the <b>tyrus</b> fallback.
+ * The {@link Contexts.Id} of the technology is <b>java</b>.
+ *
+ * @author Jaroslav Tulach
+ * @since 2.0
+ */
+@Contexts.Id("java")
+@ServiceProvider(service = Contexts.Provider.class)
+public final class JavaJSONContext
+implements Contexts.Provider, WSTransfer<WebSocket>, Transfer.BatchExtract {
+    @Override
+    public void fillContext(Contexts.Builder context, Class<?> requestor) {
+        context.register(Transfer.class, this, 500);
+        context.register(WSTransfer.class, this, 500);
+    }
+
+    @Override
+    public void extract(Object obj, String[] props, Object[] values) {
+        LoadJSON.extractJSON(obj, props, values);
+    }
+
+    @Override
+    public void extract(Object[] objs, String[] props, Object[] values) {
+        LoadJSON.extractJSON(objs, props, values);
+    }
+
+    @Override
+    public Object toJSON(InputStream is) throws IOException {
+        return LoadJSON.parse(is);
+    }
+
+    @Override
+    public void loadJSON(JSONCall call) {
+        LoadJSON.loadJSON(call);
+    }
+
+    @Override
+    public WebSocket open(String url, JSONCall callback) {
+        try {
+            return WebSocket.open(new URI(url), callback);
+        } catch (URISyntaxException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public void send(WebSocket socket, JSONCall data) {
+        socket.send(data.getMessage());
+    }
+
+    @Override
+    public void close(WebSocket socket) {
+        socket.close();
+    }
+}
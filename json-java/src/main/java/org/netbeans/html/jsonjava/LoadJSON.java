@@ -0,0 +1,319 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.jsonjava;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import org.netbeans.html.json.spi.JSONCall;
+import org.netbeans.html.json.spi.JSONReader;
+
+/** Loads and parses JSON in plain Java.
+ *
+ * @author Jaroslav Tulach
+ */
+final class LoadJSON implements Runnable {
+    static final Executor REQ = Executors.newCachedThreadPool(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private final JSONCall call;
+
+    private LoadJSON(JSONCall call) {
+        this.call = call;
+    }
+
+    public static void loadJSON(JSONCall call) {
+        assert !"WebSocket".equals(call.getMethod());
+        REQ.execute(new LoadJSON((call)));
+    }
+
+    @Override
+    public void run() {
+        final String url;
+        Throwable error = null;
+        Object json = null;
+
+        if (call.isJSONP()) {
+            url = call.composeURL("dummy");
+        } else {
+            url = call.composeURL(null);
+        }
+        try {
+            final URL u = new URL(url.replace(" ", "%20"));
+            URLConnection conn = u.openConnection();
+            if (call.isDoOutput()) {
+                conn.setDoOutput(true);
+            }
+            String h = call.getHeaders();
+            if (h != null) {
+                int pos = 0;
+                while (pos < h.length()) {
+                    int tagEnd = h.indexOf(':', pos);
+                    if (tagEnd == -1) {
+                        break;
+                    }
+                    int r = h.indexOf('\r', tagEnd);
+                    int n = h.indexOf('\n', tagEnd);
+                    if (r == -1) {
+                        r = h.length();
+                    }
+                    if (n == -1) {
+                        n = h.length();
+                    }
+                    String key = h.substring(pos, tagEnd).trim();
+                    String val = h.substring(tagEnd + 1, Math.min(r, n)).trim();
+                    conn.setRequestProperty(key, val);
+                    pos = Math.max(r, n);
+                }
+            }
+            if (call.getMethod() != null && conn instanceof HttpURLConnection) {
+                ((HttpURLConnection) conn).setRequestMethod(call.getMethod());
+            }
+            if (call.isDoOutput()) {
+                final OutputStream os = conn.getOutputStream();
+                call.writeData(os);
+                os.flush();
+            }
+            final PushbackInputStream is = new PushbackInputStream(
+                conn.getInputStream(), 1
+            );
+            try {
+                if (detectJSON(call.isJSONP(), is)) {
+                    json = parse(new JSONReader(is));
+                } else {
+                    json = readText(is);
+                }
+            } finally {
+                is.close();
+            }
+        } catch (IOException ex) {
+            error = ex;
+        } finally {
+            if (error != null) {
+                call.notifyError(error);
+            } else {
+                call.notifySuccess(json);
+            }
+        }
+    }
+
+    /** Skips whitespace and checks whether JSON object or array follows.
+     *
+     * @param skipAnything skip everything till first <code>{</code> or
+     *   <code>[</code> - used to strip the JSONP callback
+     * @param is the stream to read from
+     * @return <code>true</code> if JSON object or array follows
+     */
+    private static boolean detectJSON(boolean skipAnything, PushbackInputStream is) throws IOException {
+        for (;;) {
+            int ch = is.read();
+            if (ch == -1) {
+                return false;
+            }
+            if (Character.isWhitespace(ch)) {
+                continue;
+            }
+            if (ch == '[' || ch == '{') {
+                is.unread(ch);
+                return true;
+            }
+            if (!skipAnything) {
+                is.unread(ch);
+                return false;
+            }
+        }
+    }
+
+    private static String readText(InputStream is) throws IOException {
+        Reader r = new InputStreamReader(is, "UTF-8");
+        StringBuilder sb = new StringBuilder();
+        char[] arr = new char[4096];
+        for (;;) {
+            int len = r.read(arr);
+            if (len == -1) {
+                return sb.toString();
+            }
+            sb.append(arr, 0, len);
+        }
+    }
+
+    public static Object parse(InputStream is) throws IOException {
+        return parse(new JSONReader(is));
+    }
+
+    static Object parse(JSONReader in) throws IOException {
+        // accept what JavaScript based technologies accept
+        in.setLenient(true);
+        return readValue(in, null);
+    }
+
+    /** Reads next value.
+     * @param in the reader
+     * @param prev previously read value at the same position or <code>null</code>
+     * @return the value
+     */
+    private static Object readValue(JSONReader in, Object prev) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_OBJECT:
+                return readObject(in, prev instanceof JSONObject ? (JSONObject) prev : null);
+            case BEGIN_ARRAY: {
+                List<Object> arr = new ArrayList<Object>();
+                in.beginArray();
+                Object last = null;
+                while (in.hasNext()) {
+                    last = readValue(in, last);
+                    arr.add(last);
+                }
+                in.endArray();
+                return arr.toArray();
+            }
+            default:
+                return in.nextValue();
+        }
+    }
+
+    private static JSONObject readObject(JSONReader in, JSONObject prev) throws IOException {
+        final JSONObject.Shape same = prev == null ? null : prev.shape;
+        List<String> names = null;
+        List<Object> values = new ArrayList<Object>();
+        in.beginObject();
+        while (in.hasNext()) {
+            final int at = values.size();
+            String n = in.nextName();
+            if (names == null && (same == null || !same.hasName(at, n))) {
+                names = new ArrayList<String>();
+                for (int i = 0; i < at; i++) {
+                    names.add(same.names[i]);
+                }
+            }
+            Object v;
+            if (names == null) {
+                v = readValue(in, prev.values[at]);
+            } else {
+                names.add(n);
+                v = readValue(in, null);
+            }
+            values.add(v);
+        }
+        in.endObject();
+        final int size = values.size();
+        JSONObject.Shape shape;
+        if (names != null) {
+            shape = new JSONObject.Shape(names.toArray(new String[size]));
+        } else if (same != null && same.names.length == size) {
+            shape = same;
+        } else {
+            String[] arr = new String[size];
+            if (same != null) {
+                System.arraycopy(same.names, 0, arr, 0, size);
+            }
+            shape = new JSONObject.Shape(arr);
+        }
+        return new JSONObject(shape, values.toArray());
+    }
+
+    public static void extractJSON(Object jsonObject, String[] props, Object[] values) {
+        if (jsonObject instanceof JSONObject) {
+            JSONObject obj = (JSONObject) jsonObject;
+            for (int i = 0; i < props.length; i++) {
+                values[i] = obj.get(props[i]);
+            }
+            return;
+        }
+        if (jsonObject instanceof Map) {
+            Map<?,?> map = (Map<?,?>) jsonObject;
+            for (int i = 0; i < props.length; i++) {
+                values[i] = map.get(props[i]);
+            }
+            return;
+        }
+        for (int i = 0; i < props.length; i++) {
+            values[i] = null;
+        }
+    }
+
+    public static void extractJSON(Object[] objs, String[] props, Object[] values) {
+        JSONObject.Shape shape = null;
+        int[] at = new int[props.length];
+        Object[] row = null;
+        for (int i = 0; i < objs.length; i++) {
+            final int offset = i * props.length;
+            if (objs[i] instanceof JSONObject) {
+                JSONObject obj = (JSONObject) objs[i];
+                if (obj.shape != shape) {
+                    shape = obj.shape;
+                    for (int j = 0; j < props.length; j++) {
+                        at[j] = shape.find(props[j]);
+                    }
+                }
+                for (int j = 0; j < props.length; j++) {
+                    values[offset + j] = at[j] == -1 ? null : obj.values[at[j]];
+                }
+            } else {
+                if (row == null) {
+                    row = new Object[props.length];
+                }
+                extractJSON(objs[i], props, row);
+                System.arraycopy(row, 0, values, offset, props.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,476 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.jsonjava;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Timer;
+import java.util.TimerTask;
+import javax.net.ssl.SSLSocketFactory;
+import net.java.html.json.OnReceive;
+import org.netbeans.html.json.spi.JSONCall;
+import org.netbeans.html.json.spi.JSONReader;
+
+/** Implementation class in an implementation. Represents a client side
+ * of the WebSocket channel opened by {@link OnReceive}. Speaks the
+ * <a href="http://tools.ietf.org/html/rfc6455">RFC 6455</a> protocol
+ * directly over a {@link Socket}. You are unlikely to get on hold of it.
+ *
+ * @author Jaroslav Tulach
+ * @since 2.0
+ */
+public final class WebSocket {
+    private static final String GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final char[] BASE64 = (
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+    ).toCharArray();
+    private static final int CONTINUATION = 0x0;
+    private static final int TEXT = 0x1;
+    private static final int BINARY = 0x2;
+    private static final int CLOSE = 0x8;
+    private static final int PING = 0x9;
+    private static final int PONG = 0xA;
+    /** normal closure */
+    static final int CLOSE_NORMAL = 1000;
+    /** the peer violated the protocol */
+    static final int CLOSE_PROTOCOL = 1002;
+    /** text message isn't valid UTF-8 */
+    static final int CLOSE_INVALID_DATA = 1007;
+    /** milliseconds to wait for the server to confirm closing */
+    static final int CLOSE_TIMEOUT = 3000;
+    private static final Timer CLOSER = new Timer("WebSocket close", true); // NOI18N
+
+    private final URI url;
+    private final JSONCall callback;
+    private final SecureRandom random = new SecureRandom();
+    private Socket socket;
+    private OutputStream out;
+    private boolean closing;
+
+    private WebSocket(URI url, JSONCall callback) {
+        this.url = url;
+        this.callback = callback;
+    }
+
+    static WebSocket open(URI url, JSONCall callback) {
+        final WebSocket ws = new WebSocket(url, callback);
+        LoadJSON.REQ.execute(new Runnable() {
+            @Override
+            public void run() {
+                ws.communicate();
+            }
+        });
+        return ws;
+    }
+
+    void send(String text) {
+        try {
+            write(TEXT, text.getBytes("UTF-8"));
+        } catch (IOException ex) {
+            callback.notifyError(ex);
+        }
+    }
+
+    void close() {
+        synchronized (this) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+        }
+        try {
+            write(CLOSE, closePayload(CLOSE_NORMAL));
+        } catch (IOException ex) {
+            disconnect();
+            return;
+        }
+        // don't wait forever for the server to confirm
+        CLOSER.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                disconnect();
+            }
+        }, CLOSE_TIMEOUT);
+    }
+
+    private void communicate() {
+        InputStream is;
+        try {
+            is = connect();
+        } catch (IOException ex) {
+            disconnect();
+            callback.notifyError(ex);
+            return;
+        }
+        callback.notifySuccess(null);
+        try {
+            readFrames(is);
+        } catch (IOException ex) {
+            if (!isClosing()) {
+                disconnect();
+                callback.notifyError(ex);
+                return;
+            }
+        }
+        disconnect();
+        callback.notifyError(null);
+    }
+
+    private InputStream connect() throws IOException {
+        boolean secure = "wss".equalsIgnoreCase(url.getScheme());
+        int port = url.getPort();
+        if (port == -1) {
+            port = secure ? 443 : 80;
+        }
+        Socket s = secure ?
+            SSLSocketFactory.getDefault().createSocket(url.getHost(), port) :
+            new Socket(url.getHost(), port);
+        synchronized (this) {
+            socket = s;
+        }
+        String path = url.getRawPath();
+        if (path == null || path.length() == 0) {
+            path = "/";
+        }
+        if (url.getRawQuery() != null) {
+            path += "?" + url.getRawQuery();
+        }
+        byte[] nonce = new byte[16];
+        random.nextBytes(nonce);
+        final String key = base64(nonce);
+
+        OutputStream os = new BufferedOutputStream(s.getOutputStream());
+        StringBuilder sb = new StringBuilder();
+        sb.append("GET ").append(path).append(" HTTP/1.1\r\n");
+        sb.append("Host: ").append(url.getHost());
+        if (url.getPort() != -1) {
+            sb.append(':').append(port);
+        }
+        sb.append("\r\n");
+        sb.append("Upgrade: websocket\r\n");
+        sb.append("Connection: Upgrade\r\n");
+        sb.append("Sec-WebSocket-Key: ").append(key).append("\r\n");
+        sb.append("Sec-WebSocket-Version: 13\r\n");
+        sb.append("\r\n");
+        os.write(sb.toString().getBytes("UTF-8"));
+        os.flush();
+
+        InputStream is = new BufferedInputStream(s.getInputStream());
+        String status = readLine(is);
+        if (!status.startsWith("HTTP/1.1 101")) {
+            throw new IOException("Cannot open WebSocket to " + url + ": " + status);
+        }
+        String accept = null;
+        for (;;) {
+            String line = readLine(is);
+            if (line.length() == 0) {
+                break;
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0 && "Sec-WebSocket-Accept".equalsIgnoreCase(line.substring(0, colon).trim())) {
+                accept = line.substring(colon + 1).trim();
+            }
+        }
+        if (!accept(key).equals(accept)) {
+            throw new IOException("Wrong Sec-WebSocket-Accept: " + accept);
+        }
+        synchronized (this) {
+            out = os;
+        }
+        return is;
+    }
+
+    private void readFrames(InputStream is) throws IOException {
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        int messageType = -1;
+        for (;;) {
+            int b0 = is.read();
+            if (b0 == -1) {
+                return;
+            }
+            int b1 = readByte(is);
+            final int opcode = b0 & 0x0F;
+            final boolean fin = (b0 & 0x80) != 0;
+            if ((b0 & 0x70) != 0) {
+                throw fail(CLOSE_PROTOCOL, "Unexpected extension bits: " + b0);
+            }
+            if ((b1 & 0x80) != 0) {
+                throw fail(CLOSE_PROTOCOL, "Frames sent by a server must not be masked");
+            }
+            long len = b1 & 0x7F;
+            if (len == 126) {
+                len = (readByte(is) << 8) | readByte(is);
+            } else if (len == 127) {
+                len = 0;
+                for (int i = 0; i < 8; i++) {
+                    len = (len << 8) | readByte(is);
+                }
+            }
+            if (len < 0 || len > Integer.MAX_VALUE) {
+                throw fail(CLOSE_PROTOCOL, "Frame too long: " + len);
+            }
+            if ((opcode & 0x08) != 0 && (!fin || len > 125)) {
+                throw fail(CLOSE_PROTOCOL, "Control frames must not be fragmented nor longer than 125 bytes");
+            }
+            byte[] payload = new byte[(int) len];
+            readFully(is, payload);
+            switch (opcode) {
+                case CONTINUATION:
+                    if (messageType == -1) {
+                        throw fail(CLOSE_PROTOCOL, "No message to continue");
+                    }
+                    break;
+                case TEXT:
+                case BINARY:
+                    if (messageType != -1) {
+                        throw fail(CLOSE_PROTOCOL, "Previous message hasn't been finished");
+                    }
+                    messageType = opcode;
+                    break;
+                case CLOSE:
+                    if (payload.length == 1) {
+                        throw fail(CLOSE_PROTOCOL, "Invalid close frame");
+                    }
+                    confirmClose(payload);
+                    return;
+                case PING:
+                    write(PONG, payload);
+                    continue;
+                case PONG:
+                    continue;
+                default:
+                    throw fail(CLOSE_PROTOCOL, "Unknown opcode: " + opcode);
+            }
+            message.write(payload);
+            if (fin) {
+                String text;
+                try {
+                    text = decode(message.toByteArray());
+                } catch (CharacterCodingException ex) {
+                    if (messageType == TEXT) {
+                        throw fail(CLOSE_INVALID_DATA, "Text message isn't valid UTF-8");
+                    }
+                    text = new String(message.toByteArray(), "UTF-8");
+                }
+                message.reset();
+                messageType = -1;
+                callback.notifySuccess(toJSON(text));
+            }
+        }
+    }
+
+    /** Replies to the close frame sent by the server, unless the close
+     * has been initiated by this side.
+     */
+    private void confirmClose(byte[] payload) {
+        synchronized (this) {
+            if (closing) {
+                return;
+            }
+            closing = true;
+        }
+        byte[] code = payload.length >= 2 ? new byte[] { payload[0], payload[1] } : new byte[0];
+        try {
+            write(CLOSE, code);
+        } catch (IOException ex) {
+            // closing anyway
+        }
+    }
+
+    /** Starts closing the connection as the server violated the protocol.
+     * @return exception to throw
+     */
+    private IOException fail(int code, String msg) {
+        try {
+            write(CLOSE, closePayload(code));
+        } catch (IOException ex) {
+            // disconnecting anyway
+        }
+        return new IOException(msg + " (" + code + ")");
+    }
+
+    private static byte[] closePayload(int code) {
+        return new byte[] { (byte) (code >> 8), (byte) code };
+    }
+
+    private static String decode(byte[] data) throws CharacterCodingException {
+        CharsetDecoder d = Charset.forName("UTF-8").newDecoder().
+            onMalformedInput(CodingErrorAction.REPORT).
+            onUnmappableCharacter(CodingErrorAction.REPORT);
+        return d.decode(ByteBuffer.wrap(data)).toString();
+    }
+
+    private synchronized void write(int opcode, byte[] payload) throws IOException {
+        if (out == null) {
+            throw new IOException("WebSocket " + url + " isn't open");
+        }
+        final int len = payload.length;
+        out.write(0x80 | opcode);
+        if (len < 126) {
+            out.write(0x80 | len);
+        } else if (len < 0x10000) {
+            out.write(0x80 | 126);
+            out.write(len >>> 8);
+            out.write(len & 0xFF);
+        } else {
+            out.write(0x80 | 127);
+            for (int i = 7; i >= 0; i--) {
+                out.write(i >= 4 ? 0 : (len >>> (8 * i)) & 0xFF);
+            }
+        }
+        byte[] mask = new byte[4];
+        random.nextBytes(mask);
+        out.write(mask);
+        byte[] masked = new byte[len];
+        for (int i = 0; i < len; i++) {
+            masked[i] = (byte) (payload[i] ^ mask[i & 3]);
+        }
+        out.write(masked);
+        out.flush();
+    }
+
+    private synchronized boolean isClosing() {
+        return closing;
+    }
+
+    private synchronized void disconnect() {
+        out = null;
+        if (socket != null) {
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                // already closed
+            }
+            socket = null;
+        }
+    }
+
+    private static Object toJSON(String orig) {
+        String data = orig.trim();
+        if (data.startsWith("{") || data.startsWith("[")) {
+            try {
+                return LoadJSON.parse(new JSONReader(new StringReader(data)));
+            } catch (IOException ex) {
+                // not a JSON, deliver as text
+            }
+        }
+        return data;
+    }
+
+    private static int readByte(InputStream is) throws IOException {
+        int b = is.read();
+        if (b == -1) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private static void readFully(InputStream is, byte[] arr) throws IOException {
+        int pos = 0;
+        while (pos < arr.length) {
+            int len = is.read(arr, pos, arr.length - pos);
+            if (len == -1) {
+                throw new EOFException();
+            }
+            pos += len;
+        }
+    }
+
+    private static String readLine(InputStream is) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (;;) {
+            int ch = readByte(is);
+            if (ch == '\n') {
+                int last = sb.length() - 1;
+                if (last >= 0 && sb.charAt(last) == '\r') {
+                    sb.setLength(last);
+                }
+                return sb.toString();
+            }
+            sb.append((char) ch);
+        }
+    }
+
+    static String accept(String key) throws IOException {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-1");
+            return base64(sha.digest((key + GUID).getBytes("UTF-8")));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    private static String base64(byte[] data) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < data.length; i += 3) {
+            int b = (data[i] & 0xFF) << 16;
+            if (i + 1 < data.length) {
+                b |= (data[i + 1] & 0xFF) << 8;
+            }
+            if (i + 2 < data.length) {
+                b |= data[i + 2] & 0xFF;
+            }
+            sb.append(BASE64[(b >>> 18) & 0x3F]);
+            sb.append(BASE64[(b >>> 12) & 0x3F]);
+            sb.append(i + 1 < data.length ? BASE64[(b >>> 6) & 0x3F] : '=');
+            sb.append(i + 2 < data.length ? BASE64[b & 0x3F] : '=');
+        }
+        return sb.toString();
+    }
+}
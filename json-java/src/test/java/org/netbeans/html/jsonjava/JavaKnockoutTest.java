@@ -0,0 +1,160 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.jsonjava;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.tests.ConvertTypesTest;
+import net.java.html.json.tests.JSONTest;
+import net.java.html.json.tests.WebSocketTest;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.Transfer;
+import org.netbeans.html.json.spi.WSTransfer;
+import org.netbeans.html.json.tck.KOTest;
+import org.netbeans.html.json.tck.KnockoutTCK;
+import org.openide.util.lookup.ServiceProvider;
+import org.testng.SkipException;
+import org.testng.annotations.Factory;
+
+/** Runs the JSON and WebSocket parts of the TCK in plain Java,
+ * without any browser or JavaScript engine.
+ *
+ * @author Jaroslav Tulach
+ */
+@ServiceProvider(service = KnockoutTCK.class)
+public final class JavaKnockoutTest extends KnockoutTCK {
+    private static final Executor EXEC = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "Java JSON TCK");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+    private static URI baseURI;
+
+    public JavaKnockoutTest() {
+    }
+
+    @Factory public static Object[] compatibilityTests() throws Exception {
+        Class[] arr = {
+            ConvertTypesTest.class,
+            JSONTest.class,
+            WebSocketTest.class
+        };
+        baseURI = JavaDynamicHTTP.initServer();
+
+        List<Object> res = new ArrayList<Object>();
+        for (int i = 0; i < arr.length; i++) {
+            for (Method m : arr[i].getMethods()) {
+                if (m.getAnnotation(KOTest.class) != null) {
+                    res.add(new JavaRun(EXEC, m));
+                }
+            }
+        }
+        return res.toArray();
+    }
+
+    @Override
+    public BrwsrCtx createContext() {
+        JavaJSONContext tc = new JavaJSONContext();
+        Contexts.Builder cb = Contexts.newBuilder().
+            register(Transfer.class, tc, 10).
+            register(WSTransfer.class, tc, 10).
+            register(Executor.class, EXEC, 10);
+        return cb.build();
+    }
+
+    @Override
+    public Object createJSON(Map<String, Object> values) {
+        String[] names = values.keySet().toArray(new String[values.size()]);
+        Object[] arr = new Object[names.length];
+        for (int i = 0; i < names.length; i++) {
+            arr[i] = values.get(names[i]);
+        }
+        return new JSONObject(new JSONObject.Shape(names), arr);
+    }
+
+    @Override
+    public Object executeScript(String script, Object[] arguments) {
+        throw new SkipException("No JavaScript engine to execute: " + script);
+    }
+
+    @Override
+    public URI prepareURL(String content, String mimeType, String[] parameters) {
+        try {
+            final URL baseURL = baseURI.toURL();
+            StringBuilder sb = new StringBuilder();
+            sb.append("/dynamic?mimeType=").append(mimeType);
+            for (int i = 0; i < parameters.length; i++) {
+                sb.append("&param" + i).append("=").append(parameters[i]);
+            }
+            String mangle = content.replace("\n", "%0a")
+                .replace("\"", "\\\"").replace(" ", "%20");
+            sb.append("&content=").append(mangle);
+
+            URL query = new URL(baseURL, sb.toString());
+            URLConnection c = query.openConnection();
+            BufferedReader br = new BufferedReader(new InputStreamReader(c.getInputStream()));
+            URI connectTo = new URI(br.readLine());
+            return connectTo;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        } catch (URISyntaxException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
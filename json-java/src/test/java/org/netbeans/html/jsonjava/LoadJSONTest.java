@@ -0,0 +1,143 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.jsonjava;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+/**
+ *
+ * @author Jaroslav Tulach
+ */
+public class LoadJSONTest {
+    private static InputStream json(String text) throws IOException {
+        return new ByteArrayInputStream(text.getBytes("UTF-8"));
+    }
+
+    @Test public void parseAndExtractObject() throws Exception {
+        JavaJSONContext c = new JavaJSONContext();
+        Object obj = c.toJSON(json(
+            "{ \"name\" : \"Jarda\", \"age\" : 42, \"ok\" : true, "
+            + "\"tags\" : [ \"a\", \"b\" ], \"nothing\" : null }"
+        ));
+        String[] props = { "age", "missing", "name", "ok", "tags", "nothing" };
+        Object[] values = new Object[props.length];
+        c.extract(obj, props, values);
+        assertEquals(values[0], 42);
+        assertNull(values[1]);
+        assertEquals(values[2], "Jarda");
+        assertEquals(values[3], Boolean.TRUE);
+        assertEquals((Object[]) values[4], new Object[] { "a", "b" });
+        assertNull(values[5]);
+    }
+
+    @Test public void lastDuplicateWins() throws Exception {
+        Object obj = LoadJSON.parse(json("{ \"x\" : 1, \"y\" : 2, \"x\" : 3 }"));
+        Object[] values = new Object[2];
+        LoadJSON.extractJSON(obj, new String[] { "x", "y" }, values);
+        assertEquals(values[0], 3);
+        assertEquals(values[1], 2);
+    }
+
+    @Test public void elementsOfArrayShareShape() throws Exception {
+        Object[] arr = (Object[]) LoadJSON.parse(json("["
+            + "{ \"x\" : 1, \"y\" : { \"a\" : \"A\" } },"
+            + "{ \"x\" : 2, \"y\" : { \"a\" : \"B\" } },"
+            + "{ \"x\" : 3 },"
+            + "{ \"y\" : null, \"x\" : 4 },"
+            + "{}"
+            + "]"
+        ));
+        assertEquals(arr.length, 5);
+        JSONObject first = (JSONObject) arr[0];
+        JSONObject second = (JSONObject) arr[1];
+        JSONObject third = (JSONObject) arr[2];
+        JSONObject fourth = (JSONObject) arr[3];
+        assertSame(second.shape, first.shape, "Same properties, same shape");
+        assertSame(
+            ((JSONObject) second.values[1]).shape,
+            ((JSONObject) first.values[1]).shape,
+            "Nested objects share shape too"
+        );
+        assertNotSame(third.shape, first.shape);
+        assertEquals(third.shape.names, new String[] { "x" });
+        assertNotSame(fourth.shape, first.shape);
+        assertEquals(fourth.shape.names, new String[] { "y", "x" });
+
+        String[] props = { "x", "y" };
+        Object[] values = new Object[arr.length * props.length];
+        new JavaJSONContext().extract(arr, props, values);
+        assertEquals(values[0], 1);
+        assertSame(values[1], first.values[1]);
+        assertEquals(values[2], 2);
+        assertEquals(values[4], 3);
+        assertNull(values[5]);
+        assertEquals(values[6], 4);
+        assertNull(values[7]);
+        assertNull(values[8]);
+        assertNull(values[9]);
+    }
+
+    @Test public void manyPropertiesAreFound() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        String[] props = new String[100];
+        for (int i = 0; i < props.length; i++) {
+            props[i] = "p" + i;
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append('"').append(props[i]).append("\":").append(i);
+        }
+        sb.append('}');
+        Object obj = LoadJSON.parse(json(sb.toString()));
+        Object[] values = new Object[props.length];
+        LoadJSON.extractJSON(obj, props, values);
+        for (int i = 0; i < props.length; i++) {
+            assertEquals(values[i], i, "Property " + props[i]);
+        }
+    }
+}
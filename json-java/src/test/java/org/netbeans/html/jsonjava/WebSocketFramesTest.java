@@ -0,0 +1,285 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.jsonjava;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.Model;
+import net.java.html.json.Models;
+import net.java.html.json.OnReceive;
+import net.java.html.json.Property;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.Transfer;
+import org.netbeans.html.json.spi.WSTransfer;
+import static org.testng.Assert.*;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/** Talks to {@link WebSocket} from a hand written server to verify
+ * the client follows the protocol on the level of frames.
+ *
+ * @author Jaroslav Tulach
+ */
+@Model(className = "Frames", properties = {
+    @Property(name = "text", type = String.class)
+})
+public class WebSocketFramesTest {
+    private static final BlockingQueue<String> EVENTS = new LinkedBlockingQueue<String>();
+    private ServerSocket server;
+    private Frames model;
+    private String url;
+
+    @OnReceive(url = "{url}", data = Frames.class, method = "WebSocket", onError = "error")
+    static void talk(Frames model, Frames data) {
+        EVENTS.add(data == null ? "open" : "message:" + data.getText());
+    }
+
+    static void error(Frames model, Exception ex) {
+        EVENTS.add(ex == null ? "closed" : "error:" + ex.getMessage());
+    }
+
+    @BeforeMethod public void openServer() throws Exception {
+        EVENTS.clear();
+        server = new ServerSocket(0);
+        url = "ws://localhost:" + server.getLocalPort() + "/frames";
+        JavaJSONContext tc = new JavaJSONContext();
+        BrwsrCtx ctx = Contexts.newBuilder().
+            register(Transfer.class, tc, 10).
+            register(WSTransfer.class, tc, 10).
+            register(Executor.class, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    command.run();
+                }
+            }, 10).
+            build();
+        model = Models.bind(new Frames(), ctx);
+    }
+
+    @AfterMethod public void closeServer() throws Exception {
+        server.close();
+    }
+
+    @Test public void fragmentsInterleavedWithControlFrames() throws Exception {
+        Socket s = accept();
+        InputStream is = new BufferedInputStream(s.getInputStream());
+        OutputStream os = s.getOutputStream();
+
+        byte[] text = "{\"text\":\"Hello W\u00f6rld\"}".getBytes("UTF-8");
+        // the two bytes of o with umlaut go to different fragments
+        int split = 17;
+        assertEquals(text[split - 1] & 0xE0, 0xC0, "Start of two byte sequence");
+        frame(os, false, 0x1, text, 0, 6);
+        frame(os, true, 0x9, "p1".getBytes("UTF-8"), 0, 2);
+        frame(os, false, 0x0, text, 6, split);
+        frame(os, true, 0xA, new byte[0], 0, 0);
+        frame(os, true, 0x9, "p2".getBytes("UTF-8"), 0, 2);
+        frame(os, true, 0x0, text, split, text.length);
+
+        assertFrame(is, 0xA, "p1");
+        assertFrame(is, 0xA, "p2");
+        assertEquals(next(), "message:Hello W\u00f6rld");
+
+        frame(os, true, 0x8, new byte[] { 0x03, (byte) 0xE8 }, 0, 2);
+        byte[] close = readFrame(is, 0x8);
+        assertEquals(close, new byte[] { 0x03, (byte) 0xE8 }, "Status code echoed");
+        assertEquals(next(), "closed");
+        assertEquals(is.read(), -1, "Client disconnects");
+    }
+
+    @Test public void closeIsNotConfirmedByServer() throws Exception {
+        Socket s = accept();
+        InputStream is = new BufferedInputStream(s.getInputStream());
+
+        long before = System.currentTimeMillis();
+        model.talk(url, null);
+        byte[] close = readFrame(is, 0x8);
+        assertEquals(close, new byte[] { 0x03, (byte) 0xE8 }, "Normal closure");
+
+        s.setSoTimeout(WebSocket.CLOSE_TIMEOUT * 3);
+        assertEquals(is.read(), -1, "Client gives up waiting and disconnects");
+        long took = System.currentTimeMillis() - before;
+        assertTrue(took >= WebSocket.CLOSE_TIMEOUT - 100, "Waited for the server: " + took);
+        assertEquals(next(), "closed");
+    }
+
+    @Test public void invalidUTF8FailsTheConnection() throws Exception {
+        Socket s = accept();
+        InputStream is = new BufferedInputStream(s.getInputStream());
+        OutputStream os = s.getOutputStream();
+
+        byte[] invalid = { '{', '"', 't', 'e', 'x', 't', '"', ':', '"', (byte) 0xC3, 0x28, '"', '}' };
+        frame(os, true, 0x1, invalid, 0, invalid.length);
+
+        byte[] close = readFrame(is, 0x8);
+        assertEquals(close, new byte[] { 0x03, (byte) 0xEF }, "Invalid frame payload data: 1007");
+        String err = next();
+        assertTrue(err.startsWith("error:"), "Error reported: " + err);
+        assertEquals(is.read(), -1, "Client disconnects");
+    }
+
+    @Test public void newMessageInsideFragmentedOneIsAnError() throws Exception {
+        Socket s = accept();
+        InputStream is = new BufferedInputStream(s.getInputStream());
+        OutputStream os = s.getOutputStream();
+
+        byte[] text = "{\"text\":\"x\"}".getBytes("UTF-8");
+        frame(os, false, 0x1, text, 0, 4);
+        frame(os, true, 0x1, text, 0, text.length);
+
+        byte[] close = readFrame(is, 0x8);
+        assertEquals(close, new byte[] { 0x03, (byte) 0xEA }, "Protocol error: 1002");
+        String err = next();
+        assertTrue(err.startsWith("error:"), "Error reported: " + err);
+    }
+
+    /** Lets the client connect, performs the handshake and waits
+     * for the open notification.
+     */
+    private Socket accept() throws Exception {
+        model.talk(url, null);
+        server.setSoTimeout(10000);
+        Socket s = server.accept();
+        s.setSoTimeout(10000);
+        InputStream is = s.getInputStream();
+        String key = null;
+        for (;;) {
+            String line = readLine(is);
+            if (line.length() == 0) {
+                break;
+            }
+            if (line.toLowerCase().startsWith("sec-websocket-key:")) {
+                key = line.substring(18).trim();
+            }
+        }
+        assertNotNull(key, "Key sent");
+        OutputStream os = s.getOutputStream();
+        os.write((
+            "HTTP/1.1 101 Switching Protocols\r\n"
+            + "Upgrade: websocket\r\n"
+            + "Connection: Upgrade\r\n"
+            + "Sec-WebSocket-Accept: " + WebSocket.accept(key) + "\r\n"
+            + "\r\n"
+        ).getBytes("UTF-8"));
+        os.flush();
+        assertEquals(next(), "open");
+        return s;
+    }
+
+    private static String next() throws InterruptedException {
+        String ev = EVENTS.poll(10, TimeUnit.SECONDS);
+        assertNotNull(ev, "Event delivered in time");
+        return ev;
+    }
+
+    private static void frame(OutputStream os, boolean fin, int opcode, byte[] data, int from, int to) throws IOException {
+        int len = to - from;
+        assertTrue(len < 126, "Only short frames");
+        os.write((fin ? 0x80 : 0) | opcode);
+        os.write(len);
+        os.write(data, from, len);
+        os.flush();
+    }
+
+    private static void assertFrame(InputStream is, int opcode, String text) throws IOException {
+        assertEquals(new String(readFrame(is, opcode), "UTF-8"), text);
+    }
+
+    private static byte[] readFrame(InputStream is, int opcode) throws IOException {
+        int b0 = is.read();
+        if (b0 == -1) {
+            throw new EOFException();
+        }
+        assertEquals(b0, 0x80 | opcode, "Final frame of expected type");
+        int b1 = is.read();
+        assertTrue((b1 & 0x80) != 0, "Client frames are masked");
+        int len = b1 & 0x7F;
+        assertTrue(len < 126, "Short frame: " + len);
+        byte[] mask = new byte[4];
+        readFully(is, mask);
+        byte[] payload = new byte[len];
+        readFully(is, payload);
+        for (int i = 0; i < len; i++) {
+            payload[i] ^= mask[i & 3];
+        }
+        return payload;
+    }
+
+    private static void readFully(InputStream is, byte[] arr) throws IOException {
+        int pos = 0;
+        while (pos < arr.length) {
+            int len = is.read(arr, pos, arr.length - pos);
+            if (len == -1) {
+                throw new EOFException();
+            }
+            pos += len;
+        }
+    }
+
+    private static String readLine(InputStream is) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (;;) {
+            int ch = is.read();
+            if (ch == -1) {
+                throw new EOFException();
+            }
+            if (ch == '\n') {
+                String s = line.toString("UTF-8");
+                return s.endsWith("\r") ? s.substring(0, s.length() - 1) : s;
+            }
+            line.write(ch);
+        }
+    }
+}
@@ -101,6 +101,40 @@ public class GCKnockoutTest {
         
     }
     
+    @KOTest public void retainedObjectOfCollectedModelIsNotReused() throws Exception {
+        BrwsrCtx ctx = Utils.newContext(GCKnockoutTest.class);
+        Fullname n = Models.bind(new Fullname("Jarda", "Tulach"), ctx);
+        Object raw = Models.toRaw(n);
+        Utils.executeScript(GCKnockoutTest.class,
+            "window['gcRetained'] = arguments[0];\n", raw
+        );
+        assertEquals(firstName(), "Jarda", "Value visible in JavaScript");
+
+        Reference<?> ref = new WeakReference<Object>(n);
+        n = null;
+        assertGC(ref, "Model can disappear while JavaScript holds its object");
+
+        Fullname[] others = new Fullname[1000];
+        for (int i = 0; i < others.length; i++) {
+            others[i] = Models.bind(new Fullname("Other" + i, "Name"), ctx);
+            Models.toRaw(others[i]);
+        }
+        String name = firstName();
+        if (name != null && !"Jarda".equals(name)) {
+            throw new AssertionError("Retained object must not show other model: " + name);
+        }
+        Utils.executeScript(GCKnockoutTest.class, "delete window['gcRetained'];\n");
+    }
+
+    private static String firstName() throws Exception {
+        Object ret = Utils.executeScript(GCKnockoutTest.class,
+            "var p = window['gcRetained']['firstName'];\n"
+          + "if (typeof p === 'function') p = p();\n"
+          + "return p === undefined ? null : p;\n"
+        );
+        return ret == null ? null : ret.toString();
+    }
+
     private void assertGC(Reference<?> ref, String msg) throws Exception {
         for (int i = 0; i < 100; i++) {
             if (ref.get() == null) {
@@ -45,6 +45,8 @@ package net.java.html.json.tests;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 import net.java.html.BrwsrCtx;
 import net.java.html.json.Model;
 import net.java.html.json.ModelOperation;
@@ -598,6 +600,93 @@ public final class JSONTest {
         assertEquals((byte)0, v.getSmall(), "Small value is empty: " + v.getSmall());
     }
 
+    @KOTest public void parseLongTextWithSurrogatePairs() throws Exception {
+        String prefix = "{ \"name\":\"";
+        StringBuilder name = new StringBuilder();
+        // first pair straddles the 8192nd character of the input
+        for (int i = prefix.length(); i < 8191; i++) {
+            name.append('x');
+        }
+        for (int i = 0; i < 4500; i++) {
+            name.append("\ud83d\ude00");
+        }
+        String txt = prefix + name + "\" }";
+        ByteArrayInputStream is = new ByteArrayInputStream(txt.getBytes("UTF-8"));
+        NameAndValue v = Models.parse(newContext(), NameAndValue.class, is);
+        assertEquals(v.getName().length(), name.length(), "Whole name read");
+        assertEquals(v.getName(), name.toString(), "Surrogate pairs kept");
+    }
+
+    @Model(className = "Shaped", properties = {
+        @Property(name = "name", type = String.class),
+        @Property(name = "count", type = int.class),
+        @Property(name = "ratio", type = double.class),
+        @Property(name = "flag", type = boolean.class),
+        @Property(name = "sex", type = Sex.class),
+        @Property(name = "tags", type = String.class, array = true)
+    })
+    static class ShapedCntrl {
+    }
+
+    @KOTest public void parseArrayOfMixedShapes() throws Exception {
+        String[] items = {
+            "{ \"name\":\"full\", \"count\":3, \"ratio\":0.5, \"flag\":true, \"sex\":\"MALE\", \"tags\":[\"a\",\"b\"] }",
+            "{ \"count\":7 }",
+            "{ \"name\":null, \"count\":null, \"ratio\":null, \"flag\":null, \"sex\":null, \"tags\":null }",
+            "{ \"extra\":\"ignored\", \"tags\":[], \"flag\":false, \"name\":\"last\", \"sex\":\"FEMALE\" }",
+            "{}"
+        };
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        for (int i = 0; i < items.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(items[i]);
+        }
+        sb.append(']');
+
+        BrwsrCtx c = newContext();
+        List<Shaped> arr = new ArrayList<Shaped>();
+        Models.parse(c, Shaped.class, new ByteArrayInputStream(sb.toString().getBytes("UTF-8")), arr);
+        assertEquals(arr.size(), items.length, "All objects read: " + arr);
+
+        Shaped full = arr.get(0);
+        assertEquals(full.getName(), "full", "name");
+        assertEquals(full.getCount(), 3, "count");
+        assertEquals(full.getRatio(), 0.5, "ratio");
+        assertTrue(full.isFlag(), "flag");
+        assertEquals(full.getSex(), Sex.MALE, "sex");
+        assertEquals(full.getTags().size(), 2, "tags: " + full.getTags());
+        assertEquals(full.getTags().get(1), "b", "tags: " + full.getTags());
+
+        Shaped count = arr.get(1);
+        assertNull(count.getName(), "missing name");
+        assertEquals(count.getCount(), 7, "count");
+        assertTrue(!count.isFlag(), "missing flag");
+        assertNull(count.getSex(), "missing sex");
+        assertEquals(count.getTags().size(), 0, "missing tags: " + count.getTags());
+
+        Shaped nulls = arr.get(2);
+        assertNull(nulls.getName(), "null name");
+        assertEquals(nulls.getCount(), 0, "null count");
+        assertTrue(!nulls.isFlag(), "null flag");
+        assertNull(nulls.getSex(), "null sex");
+        assertEquals(nulls.getTags().size(), 0, "null tags: " + nulls.getTags());
+
+        Shaped last = arr.get(3);
+        assertEquals(last.getName(), "last", "name");
+        assertEquals(last.getCount(), 0, "missing count");
+        assertTrue(!last.isFlag(), "flag");
+        assertEquals(last.getSex(), Sex.FEMALE, "sex");
+        assertEquals(last.getTags().size(), 0, "empty tags: " + last.getTags());
+
+        for (int i = 0; i < items.length; i++) {
+            Shaped one = Models.parse(c, Shaped.class, new ByteArrayInputStream(items[i].getBytes("UTF-8")));
+            assertEquals(arr.get(i).toString(), one.toString(), "Same as read alone: " + items[i]);
+        }
+    }
+
     @KOTest public void deserializeWrongEnum() throws Exception {
         PrintStream prev;
         ByteArrayOutputStream err = new ByteArrayOutputStream();
@@ -535,6 +535,111 @@ public final class KnockoutTest {
         }
     }
 
+    @KOTest public void arrayModificationsAreSpliced() throws Exception {
+        Object exp = Utils.exposeHTML(KnockoutTest.class,
+            "<ul id='ul' data-bind='foreach: results'>\n"
+            + "  <li data-bind='text: $data'/>\n"
+            + "</ul>\n"
+        );
+        try {
+            KnockoutModel m = Models.bind(new KnockoutModel(), newContext());
+            m.getResults().add("A");
+            m.getResults().add("C");
+            m.applyBindings();
+            assertChildren("A,C", m);
+
+            m.getResults().add(1, "B");
+            assertChildren("A,B,C", m);
+
+            m.getResults().add("D");
+            assertChildren("A,B,C,D", m);
+
+            m.getResults().remove(0);
+            assertChildren("B,C,D", m);
+
+            m.getResults().set(1, "X");
+            assertChildren("B,X,D", m);
+
+            m.getResults().remove("D");
+            assertChildren("B,X", m);
+
+            m.getResults().clear();
+            assertChildren("", m);
+        } finally {
+            Utils.exposeHTML(KnockoutTest.class, "");
+        }
+    }
+
+    private static void assertChildren(String exp, KnockoutModel m) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (String s : m.getResults()) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(s);
+        }
+        assertEquals(exp, sb.toString(), "Model content is " + sb);
+
+        Object obs = Utils.executeScript(KnockoutTest.class,
+            "var data = ko.dataFor(window.document.getElementById('ul'));\n"
+          + "return data['results']()['join'](',');\n"
+        );
+        assertEquals(exp, obs, "Observable content is " + obs);
+
+        int cnt = Utils.countChildren(KnockoutTest.class, "ul");
+        StringBuilder dom = new StringBuilder();
+        for (int i = 0; i < cnt; i++) {
+            if (i > 0) {
+                dom.append(',');
+            }
+            dom.append(childText("ul", i));
+        }
+        assertEquals(exp, dom.toString(), "DOM content is " + dom);
+    }
+
+    @KOTest public void batchedChangesAreDisplayed() throws Exception {
+        Object exp = Utils.exposeHTML(KnockoutTest.class,
+            "Your name: <input id='input' data-bind=\"value: name\"></input>\n"
+            + "<ul id='ul' data-bind='foreach: results'>\n"
+            + "  <li data-bind='text: $data'/>\n"
+            + "</ul>\n"
+        );
+        try {
+            final KnockoutModel m = Models.bind(new KnockoutModel(), newContext());
+            m.setName("Initial");
+            m.applyBindings();
+
+            Models.batch(new Runnable() {
+                @Override
+                public void run() {
+                    m.setName("First");
+                    m.getResults().add("Ahoj");
+                    Models.batch(new Runnable() {
+                        @Override
+                        public void run() {
+                            m.setName("Second");
+                            m.getResults().add("Hi");
+                        }
+                    });
+                    m.setName("Last");
+                    m.getResults().add("Hello");
+                }
+            });
+
+            String v = getSetInput("input", null);
+            assertEquals("Last", v, "Value is the last one: " + v);
+
+            int cnt = Utils.countChildren(KnockoutTest.class, "ul");
+            assertEquals(cnt, 3, "Three children now, but was " + cnt);
+
+            m.setName("Unbatched");
+            v = getSetInput("input", null);
+            assertEquals("Unbatched", v, "Regular changes work: " + v);
+        } finally {
+            Utils.exposeHTML(KnockoutTest.class, "");
+        }
+    }
+
     @KOTest public void displayContentOfAsyncArray() throws Exception {
         if (js == null) {
             Utils.exposeHTML(KnockoutTest.class,
@@ -923,6 +1028,164 @@ public final class KnockoutTest {
         }
     }
 
+    @KOTest public void computedReadWithoutSubscribers() throws Exception {
+        KnockoutModel m = Models.bind(new KnockoutModel(), newContext());
+        m.setName("Jarda");
+        Object raw = Models.toRaw(m);
+
+        assertEquals(m.getHelloMessage(), "Hello Jarda!", "Read from Java");
+        assertEquals(readProperty(raw, "helloMessage"), "Hello Jarda!", "Read from JS");
+
+        m.setName("Tonda");
+        assertEquals(m.getHelloMessage(), "Hello Tonda!", "Recomputed in Java");
+        assertEquals(readProperty(raw, "helloMessage"), "Hello Tonda!", "Sleeping computed recomputed in JS");
+
+        m.setName("Pepa");
+        assertEquals(readProperty(raw, "helloMessage"), "Hello Pepa!", "Read from JS first");
+        assertEquals(m.getHelloMessage(), "Hello Pepa!", "Then from Java");
+    }
+
+    private static Object readProperty(Object raw, String prop) throws Exception {
+        return Utils.executeScript(KnockoutTest.class,
+            "var p = arguments[0][arguments[1]];\n"
+          + "return typeof p === 'function' ? p() : p;\n",
+            raw, prop
+        );
+    }
+
+    @Model(className = "WideModel", targetId = "", properties = {
+        @Property(name = "p0", type = String.class),
+        @Property(name = "p1", type = String.class),
+        @Property(name = "p2", type = String.class),
+        @Property(name = "p3", type = String.class),
+        @Property(name = "p4", type = String.class),
+        @Property(name = "p5", type = String.class),
+        @Property(name = "p6", type = String.class),
+        @Property(name = "p7", type = String.class),
+        @Property(name = "p8", type = String.class),
+        @Property(name = "p9", type = String.class),
+        @Property(name = "p10", type = String.class),
+        @Property(name = "p11", type = String.class),
+        @Property(name = "p12", type = String.class),
+        @Property(name = "p13", type = String.class),
+        @Property(name = "p14", type = String.class),
+        @Property(name = "p15", type = String.class),
+        @Property(name = "items", type = String.class, array = true),
+        @Property(name = "numbers", type = int.class, array = true),
+    })
+    static class WideModelCntrl {
+        @ComputedProperty static int count(List<String> items) {
+            return items.size();
+        }
+    }
+
+    @KOTest public void untouchedPropertiesOfWideModel() throws Exception {
+        Object exp = Utils.exposeHTML(KnockoutTest.class,
+            "<span id='span' data-bind='text: p0'></span>\n"
+        );
+        try {
+            WideModel m = Models.bind(new WideModel(), newContext());
+            m.setP0("zero");
+            m.setP5("five");
+            m.applyBindings();
+
+            assertEquals(m.getP5(), "five", "Java value is kept");
+            assertEquals(wideProperty("p5", null), "five", "Untouched property read from JS");
+
+            m.setP6("six");
+            assertEquals(wideProperty("p6", null), "six", "Changed before first read in JS");
+
+            assertEquals(wideProperty("p7", "seven"), "seven", "Written from JS");
+            assertEquals(m.getP7(), "seven", "Written from JS is visible in Java");
+
+            m.setP7("eight");
+            assertEquals(wideProperty("p7", null), "eight", "Change after the first read");
+            assertEquals(m.getP0(), "zero", "Bound property untouched");
+        } finally {
+            Utils.exposeHTML(KnockoutTest.class, "");
+        }
+    }
+
+    @KOTest public void wideModelPropertyBoundAfterApplyBindings() throws Exception {
+        Object exp = Utils.exposeHTML(KnockoutTest.class,
+            "<span id='span' data-bind='text: p0'></span>\n"
+          + "<span id='later'></span>\n"
+        );
+        try {
+            WideModel m = Models.bind(new WideModel(), newContext());
+            m.setP9("before");
+            m.applyBindings();
+
+            Utils.executeScript(KnockoutTest.class,
+                "var data = ko.dataFor(window.document.getElementById('span'));\n"
+              + "var e = window.document.getElementById('later');\n"
+              + "e.setAttribute('data-bind', 'text: p9');\n"
+              + "ko.applyBindings(data, e);\n"
+            );
+            assertEquals(elementText("later"), "before", "Value shown when first bound");
+
+            m.setP9("after");
+            assertEquals(elementText("later"), "after", "Later changes are shown");
+        } finally {
+            Utils.exposeHTML(KnockoutTest.class, "");
+        }
+    }
+
+    @KOTest public void arraysOfWideModel() throws Exception {
+        Object exp = Utils.exposeHTML(KnockoutTest.class,
+                "<div>\n"
+                + "<ul id='ul' data-bind='foreach: items'>\n"
+                + "  <li data-bind='text: $data'></li>\n"
+                + "</ul>\n"
+                + "<span id='count' data-bind='text: count'></span>\n"
+              + "</div>\n"
+        );
+        try {
+            WideModel m = Models.bind(new WideModel(), newContext());
+            m.getItems().add("Ahoj");
+            m.getNumbers().add(1);
+            m.applyBindings();
+
+            assertEquals(Utils.countChildren(KnockoutTest.class, "ul"), 1, "One child");
+            assertEquals(elementText("count"), "1", "Computed count");
+
+            m.getItems().add("Hello");
+            assertEquals(Utils.countChildren(KnockoutTest.class, "ul"), 2, "Two children");
+
+            Object arr = Utils.addChildren(KnockoutTest.class, "ul", "items", "Hi");
+            assertTrue(arr instanceof Object[], "Got back an array: " + arr);
+            assertEquals(((Object[]) arr).length, 3, "Three elements in the array");
+            assertEquals(Utils.countChildren(KnockoutTest.class, "ul"), 3, "Three children");
+            assertEquals(m.getItems().size(), 3, "Three java strings: " + m.getItems());
+            assertEquals(m.getCount(), 3, "Count updated");
+            assertEquals(elementText("count"), "3", "Count shown");
+
+            m.getNumbers().add(42);
+            Object nums = wideProperty("numbers", null);
+            assertTrue(nums instanceof Object[], "Untouched array read from JS: " + nums);
+            assertEquals(((Object[]) nums).length, 2, "Two numbers");
+        } finally {
+            Utils.exposeHTML(KnockoutTest.class, "");
+        }
+    }
+
+    private static Object wideProperty(String prop, Object value) throws Exception {
+        return Utils.executeScript(KnockoutTest.class,
+            "var data = ko.dataFor(window.document.getElementById('span') || window.document.getElementById('ul'));\n"
+          + "var p = data[arguments[0]];\n"
+          + "if (arguments[1] != null) p(arguments[1]);\n"
+          + "return p();\n",
+            prop, value
+        );
+    }
+
+    private static String elementText(String id) throws Exception {
+        Object ret = Utils.executeScript(KnockoutTest.class,
+            "return window.document.getElementById(arguments[0]).innerHTML;\n", id
+        );
+        return ret == null ? null : ret.toString();
+    }
+
     @Function
     static void call(KnockoutModel m, String data) {
         m.setName(data);
@@ -43,10 +43,23 @@
 package net.java.html.json;
 
 import net.java.html.BrwsrCtx;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import org.netbeans.html.json.impl.Batch;
 import org.netbeans.html.json.impl.JSON;
+import org.netbeans.html.json.impl.JSONList;
+import org.netbeans.html.json.impl.LiveView;
+import org.netbeans.html.json.spi.JSONReader;
+import org.netbeans.html.json.spi.JSONWriter;
 import org.netbeans.html.json.spi.Technology;
 
 /** Information about and 
@@ -119,6 +132,137 @@ public final class Models {
         JSON.readStream(c, model, is, collectTo);
     }
     
+    /** Reads a model class directly from a textual JSON stream. Unlike
+     * {@link #parse(net.java.html.BrwsrCtx, java.lang.Class, java.io.InputStream) parse}
+     * the text isn't handed to the {@link org.netbeans.html.json.spi.Transfer}
+     * of the context. The code generated for the {@link Model} annotation
+     * decodes it and fills the fields of the model straight away.
+     * No presenter nor JavaScript engine is needed, which makes
+     * this method suitable for server side and headless use.
+     * The stream may also contain an array with a single element.
+     * An array with more elements or any content after the JSON value
+     * is reported as an {@link IOException}.
+     *
+     * @param <M> type of the <code>model</code> class
+     * @param c context the model instance should be created in
+     * @param model the model class generated by {@link Model} annotation
+     * @param r the stream with JSON text
+     * @return new instance of the model class
+     * @throws IOException thrown when an I/O problem appears or
+     *   the stream doesn't contain valid JSON
+     * @throws IllegalArgumentException if <code>model</code> isn't a model class
+     * @since 2.0
+     */
+    public static <M> M read(BrwsrCtx c, Class<M> model, Reader r) throws IOException {
+        return JSON.readJSON(c, model, new JSONReader(r));
+    }
+
+    /** Reads a stream that can possibly contain a large array of
+     * model classes. The stream is processed incrementally: each element
+     * is added to the <code>collectTo</code> collection as soon as
+     * it is read and before the rest of the stream is processed.
+     * The collection may therefore act as a callback, processing
+     * the elements in its {@link Collection#add(java.lang.Object) add}
+     * method, so only a single element needs to be kept in memory.
+     * The text is decoded the same way as by
+     * {@link #read(net.java.html.BrwsrCtx, java.lang.Class, java.io.Reader)}.
+     *
+     * @param <M> the type of the individual JSON object
+     * @param c context the model instances should be created in
+     * @param model the model class generated by {@link Model} annotation
+     * @param r the stream with JSON text
+     * @param collectTo collection to add the individual model instances to.
+     *   If the stream contains an object, one instance will be added, if
+     *   it contains an array, the number of array items will be added to
+     *   the collection
+     * @throws IOException thrown when an I/O problem appears or
+     *   the stream doesn't contain valid JSON
+     * @throws IllegalArgumentException if <code>model</code> isn't a model class
+     * @since 2.0
+     */
+    public static <M> void read(
+        BrwsrCtx c, Class<M> model,
+        Reader r, Collection<? super M> collectTo
+    ) throws IOException {
+        collectTo.getClass();
+        JSON.readJSON(c, model, new JSONReader(r), collectTo);
+    }
+
+    /** Iterates over a stream that can possibly contain a large array of
+     * model classes. Each element is read from the stream only when
+     * requested by {@link Iterator#next()}. The stream is decoded the
+     * same way as by
+     * {@link #read(net.java.html.BrwsrCtx, java.lang.Class, java.io.Reader)}.
+     * Problems reading the stream are reported as
+     * {@link IllegalStateException} with the original {@link IOException}
+     * as its cause.
+     *
+     * @param <M> the type of the individual JSON object
+     * @param c context the model instances should be created in
+     * @param model the model class generated by {@link Model} annotation
+     * @param r the stream with JSON text
+     * @return iterator over the elements of JSON array in the stream, or
+     *   over a single element if the stream contains just an object
+     * @throws IllegalArgumentException if <code>model</code> isn't a model class
+     * @since 2.0
+     */
+    public static <M> Iterator<M> iterate(BrwsrCtx c, Class<M> model, Reader r) {
+        return JSON.iterateJSON(c, model, new JSONReader(r));
+    }
+
+    /** Writes a model as JSON text into a stream. The code generated for
+     * the {@link Model} annotation writes values of the model's fields
+     * directly, without computing any intermediate strings.
+     * Besides models the method accepts collections of models and
+     * any values that can be stored in a property of a model.
+     *
+     * @param model the instance of a model class to write
+     * @param w the stream to write to
+     * @throws IOException thrown when an I/O problem appears
+     * @since 2.0
+     */
+    public static void write(Object model, Writer w) throws IOException {
+        JSONWriter out = new JSONWriter(w);
+        out.value(model);
+        out.flush();
+    }
+
+    /** Writes a model as JSON text encoded in UTF-8 into a byte stream.
+     * Behaves like {@link #write(java.lang.Object, java.io.Writer)}, but
+     * encodes the characters directly into bytes.
+     *
+     * @param model the instance of a model class to write
+     * @param os the stream to write to
+     * @throws IOException thrown when an I/O problem appears
+     * @since 2.0
+     */
+    public static void write(Object model, OutputStream os) throws IOException {
+        JSONWriter out = new JSONWriter(os);
+        out.value(model);
+        out.flush();
+    }
+
+    /** Writes a model as JSON text encoded in UTF-8 into a buffer.
+     * Behaves like {@link #write(java.lang.Object, java.io.Writer)}, but
+     * encodes the characters directly into the buffer, starting at its
+     * current position.
+     *
+     * @param model the instance of a model class to write
+     * @param buffer the buffer to write to
+     * @throws java.nio.BufferOverflowException if there is not enough
+     *   space in the buffer
+     * @since 2.0
+     */
+    public static void write(Object model, ByteBuffer buffer) {
+        JSONWriter out = new JSONWriter(buffer);
+        try {
+            out.value(model);
+            out.flush();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
     /** Converts an existing, raw, JSON object into a {@link Model model class}.
      * 
      * @param <M> the type of the model class
@@ -188,4 +332,151 @@ public final class Models {
     public static void applyBindings(Object model, String targetId) {
         JSON.applyBindings(model, targetId);
     }
+
+    /** Runs the provided block and postpones notifications about changes
+     * made to models by the current thread until the block is over.
+     * Then each changed property of each model (and each modified
+     * list) is reported to the {@link Technology} just once, regardless
+     * of how many times it has been modified. Batches may be nested,
+     * the changes are delivered when the outermost one finishes (even if
+     * it finishes with an exception). There is no rollback - the
+     * values of the model properties are modified immediately, only
+     * the notifications are delayed.
+     *
+     * @param block the code to run
+     * @since 2.0
+     */
+    public static void batch(Runnable block) {
+        Batch.run(block);
+    }
+
+    /** Copies content of an <code>int</code> {@link Property#array() array property}.
+     * Lists of <code>int</code>, <code>double</code> and <code>boolean</code>
+     * properties keep their values unboxed and this method copies them
+     * without boxing. Any other list is converted element by element.
+     * <code>null</code> elements are treated as <code>0</code>.
+     *
+     * @param list the list, usually obtained from a model getter
+     * @return new array with the values of the list
+     * @since 2.0
+     */
+    public static int[] toIntArray(List<? extends Number> list) {
+        return JSONList.toIntArray(list);
+    }
+
+    /** Copies content of a <code>double</code> {@link Property#array() array property}.
+     * Works like {@link #toIntArray(java.util.List)}.
+     *
+     * @param list the list, usually obtained from a model getter
+     * @return new array with the values of the list
+     * @since 2.0
+     */
+    public static double[] toDoubleArray(List<? extends Number> list) {
+        return JSONList.toDoubleArray(list);
+    }
+
+    /** Copies content of a <code>boolean</code> {@link Property#array() array property}.
+     * Works like {@link #toIntArray(java.util.List)}, <code>null</code>
+     * elements are treated as <code>false</code>.
+     *
+     * @param list the list, usually obtained from a model getter
+     * @return new array with the values of the list
+     * @since 2.0
+     */
+    public static boolean[] toBooleanArray(List<Boolean> list) {
+        return JSONList.toBooleanArray(list);
+    }
+
+    /** Replaces content of an <code>int</code> {@link Property#array() array property}.
+     * The values of the list are set without boxing and only the
+     * differences are reported to the {@link Technology} as modifications.
+     *
+     * @param list the list, usually obtained from a model getter
+     * @param values the new content of the list
+     * @since 2.0
+     */
+    public static void setAll(List<Integer> list, int[] values) {
+        JSONList.setAll(list, values);
+    }
+
+    /** Replaces content of a <code>double</code> {@link Property#array() array property}.
+     * Works like {@link #setAll(java.util.List, int[])}.
+     *
+     * @param list the list, usually obtained from a model getter
+     * @param values the new content of the list
+     * @since 2.0
+     */
+    public static void setAll(List<Double> list, double[] values) {
+        JSONList.setAll(list, values);
+    }
+
+    /** Replaces content of a <code>boolean</code> {@link Property#array() array property}.
+     * Works like {@link #setAll(java.util.List, int[])}.
+     *
+     * @param list the list, usually obtained from a model getter
+     * @param values the new content of the list
+     * @since 2.0
+     */
+    public static void setAll(List<Boolean> list, boolean[] values) {
+        JSONList.setAll(list, values);
+    }
+
+    /** Keeps the <code>target</code> list a filtered and sorted view of
+     * the <code>source</code> list. Unlike a {@link ComputedProperty}
+     * that would filter and sort the whole list again on any change,
+     * the view is updated incrementally: elements added to
+     * (or removed from) the source are inserted at their
+     * position in (or removed from) the target. When a property of
+     * an element changes, just that element is evaluated again and moved,
+     * inserted or removed. The <code>target</code> is usually another
+     * {@link Property#array() array property} of a model, so the view
+     * is exposed to the {@link Technology} as any other list and its
+     * modifications are delivered as fine grained changes.
+     * <pre>
+     * {@link Model @Model}(className="Inbox", properties={
+     *   {@link Property @Property}(name="all", type=Message.class, array=true),
+     *   {@link Property @Property}(name="unread", type=Message.class, array=true)
+     * })
+     * class InboxCntrl {
+     *   static void init(Inbox inbox) {
+     *     Models.view(inbox.getAll(), inbox.getUnread(), new Models.Filter&lt;Message&gt;() {
+     *       public boolean accept(Message m) { return !m.isRead(); }
+     *     }, BY_DATE);
+     *   }
+     * }
+     * </pre>
+     *
+     * @param <T> type of the elements
+     * @param source array property of a model to observe
+     * @param target the list to keep in sync, its original content is replaced
+     * @param filter selects elements to include in the view or
+     *   <code>null</code> to include all of them
+     * @param order the order of elements in the view
+     * @return handle to {@link Closeable#close() stop} updating the
+     *   <code>target</code> and release the listeners attached
+     *   to the <code>source</code> and its elements
+     * @throws IllegalArgumentException if the <code>source</code> isn't
+     *   an array property of a model or is the same as <code>target</code>
+     * @since 2.0
+     */
+    public static <T> Closeable view(
+        List<T> source, List<T> target,
+        Filter<? super T> filter, Comparator<? super T> order
+    ) {
+        return LiveView.create(source, target, filter, order);
+    }
+
+    /** Selects elements of a {@link #view(java.util.List, java.util.List, net.java.html.json.Models.Filter, java.util.Comparator) view}.
+     *
+     * @param <T> type of the elements
+     * @since 2.0
+     */
+    public static interface Filter<T> {
+        /** Decides whether an element belongs to the view.
+         *
+         * @param element the element to check
+         * @return <code>true</code> to include the element in the view
+         */
+        public boolean accept(T element);
+    }
 }
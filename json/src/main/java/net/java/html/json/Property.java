@@ -95,4 +95,16 @@ public @interface Property {
      * @since 1.3
      */
     boolean mutable() default true;
+
+    /** Name of a property of the {@link #type() element model} identifying
+     * elements of an {@link #array() array}. When specified, the list keeps
+     * a hash index from values of the key property to its elements and
+     * the generated class gets a method to find an element by its key.
+     * For example a property <code>rows</code> with key <code>id</code>
+     * generates <code>findRowsById(Object id)</code> method.
+     *
+     * @return name of the key property of the elements or empty string
+     * @since 2.0
+     */
+    String key() default "";
 }
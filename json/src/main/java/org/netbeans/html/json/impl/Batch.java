@@ -0,0 +1,227 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.java.html.BrwsrCtx;
+import org.netbeans.html.json.spi.Proto;
+
+/** Changes made to models by a single thread while a
+ * {@link net.java.html.json.Models#batch(java.lang.Runnable) batch} is
+ * running. Each model and each list is notified only once when the
+ * outermost batch finishes.
+ */
+public final class Batch {
+    private static final ThreadLocal<Batch> CURRENT = new ThreadLocal<Batch>();
+
+    private final Map<Object, Pending> pending = new LinkedHashMap<Object, Pending>();
+    private int depth;
+
+    private Batch() {
+    }
+
+    public static void run(Runnable block) {
+        Batch b = CURRENT.get();
+        if (b == null) {
+            b = new Batch();
+            CURRENT.set(b);
+        }
+        b.depth++;
+        try {
+            block.run();
+        } finally {
+            if (--b.depth == 0) {
+                CURRENT.remove();
+                b.flush();
+            }
+        }
+    }
+
+    /** Records a change of a property, if there is a batch running.
+     *
+     * @return <code>true</code> if the change has been recorded and
+     *   shall be delivered later, <code>false</code> if the caller
+     *   shall deliver it itself
+     */
+    public static boolean valueHasMutated(Proto proto, int index, Object oldValue, Object newValue) {
+        Batch b = CURRENT.get();
+        if (b == null) {
+            return false;
+        }
+        Dirty d = (Dirty) b.pending.get(proto);
+        if (d == null) {
+            d = new Dirty(proto);
+            b.pending.put(proto, d);
+        }
+        d.mark(index, oldValue, newValue);
+        return true;
+    }
+
+    static boolean execute(Proto proto, Runnable notify) {
+        Batch b = CURRENT.get();
+        if (b == null) {
+            return false;
+        }
+        if (!b.pending.containsKey(notify)) {
+            b.pending.put(notify, new Notify(proto, notify));
+        }
+        return true;
+    }
+
+    private void flush() {
+        Map<BrwsrCtx, List<Pending>> byContext = new LinkedHashMap<BrwsrCtx, List<Pending>>();
+        for (Pending p : pending.values()) {
+            final BrwsrCtx ctx = p.proto.getContext();
+            List<Pending> list = byContext.get(ctx);
+            if (list == null) {
+                list = new ArrayList<Pending>();
+                byContext.put(ctx, list);
+            }
+            list.add(p);
+        }
+        pending.clear();
+        for (Map.Entry<BrwsrCtx, List<Pending>> entry : byContext.entrySet()) {
+            final List<Pending> changes = entry.getValue();
+            entry.getKey().execute(new Runnable() {
+                @Override
+                public void run() {
+                    Throwable first = null;
+                    for (Pending p : changes) {
+                        try {
+                            p.run();
+                        } catch (RuntimeException ex) {
+                            first = first == null ? ex : first;
+                        } catch (Error err) {
+                            first = first == null ? err : first;
+                        }
+                    }
+                    rethrow(first);
+                }
+            });
+        }
+    }
+
+    /** Throws the first failure of a notification, after all the other
+     * notifications have been delivered.
+     */
+    static void rethrow(Throwable first) {
+        if (first instanceof RuntimeException) {
+            throw (RuntimeException) first;
+        }
+        if (first instanceof Error) {
+            throw (Error) first;
+        }
+    }
+
+    private static abstract class Pending implements Runnable {
+        final Proto proto;
+
+        Pending(Proto proto) {
+            this.proto = proto;
+        }
+    }
+
+    private static final class Notify extends Pending {
+        private final Runnable notify;
+
+        Notify(Proto proto, Runnable notify) {
+            super(proto);
+            this.notify = notify;
+        }
+
+        @Override
+        public void run() {
+            notify.run();
+        }
+    }
+
+    private static final class Dirty extends Pending {
+        private long[] dirty = new long[1];
+        private Object[] oldValues = new Object[0];
+        private Object[] newValues = new Object[0];
+
+        Dirty(Proto proto) {
+            super(proto);
+        }
+
+        void mark(int index, Object oldValue, Object newValue) {
+            if (index >= oldValues.length) {
+                int len = Math.max(index + 1, oldValues.length * 2);
+                oldValues = Arrays.copyOf(oldValues, len);
+                newValues = Arrays.copyOf(newValues, len);
+                dirty = Arrays.copyOf(dirty, (len + 63) / 64);
+            }
+            final long bit = 1L << (index % 64);
+            if ((dirty[index / 64] & bit) == 0) {
+                dirty[index / 64] |= bit;
+                oldValues[index] = oldValue;
+            } else if (oldValue == null && newValue == null) {
+                oldValues[index] = null;
+            }
+            newValues[index] = newValue;
+        }
+
+        @Override
+        public void run() {
+            Throwable first = null;
+            for (int i = 0; i < oldValues.length; i++) {
+                if ((dirty[i / 64] & (1L << (i % 64))) != 0) {
+                    try {
+                        PropertyBindingAccessor.notifyProtoMutated(
+                            proto, i, oldValues[i], newValues[i]
+                        );
+                    } catch (RuntimeException ex) {
+                        first = first == null ? ex : first;
+                    } catch (Error err) {
+                        first = first == null ? err : first;
+                    }
+                }
+            }
+            rethrow(first);
+        }
+    }
+}
@@ -58,6 +58,7 @@ public final class Bindings<Data> {
     private static final Logger LOG = Logger.getLogger(Bindings.class.getName()); 
     
     private Data data;
+    private String[] names;
     private final Technology<Data> bp;
 
     private Bindings(Technology<Data> bp) {
@@ -79,6 +80,10 @@ public final class Bindings<Data> {
     
     public final void finish(Object model, Object copyFrom, PropertyBinding[] propArr, FunctionBinding[] funcArr) {
         assert data == null;
+        names = new String[propArr.length];
+        for (int i = 0; i < propArr.length; i++) {
+            names[i] = propArr[i].getPropertyName();
+        }
         if (bp instanceof Technology.BatchCopy) {
             Technology.BatchCopy<Data> bi = (Technology.BatchCopy<Data>)bp;
             data = bi.wrapModel(model, copyFrom, propArr, funcArr);
@@ -101,6 +106,19 @@ public final class Bindings<Data> {
         return data;
     }
 
+    /** Reports change of a property. Only values provided by the model
+     * are passed to the technology; when both are <code>null</code> the
+     * technology is merely told to read the property again when it needs
+     * it, so derived properties aren't computed eagerly.
+     *
+     * @param index index of the property
+     * @param oldValue the old value or <code>null</code>
+     * @param newValue the new value or <code>null</code>
+     */
+    public void valueHasMutated(int index, Object oldValue, Object newValue) {
+        valueHasMutated(names[index], oldValue, newValue);
+    }
+
     public void valueHasMutated(String firstName, Object oldValue, Object newValue) {
         if (bp instanceof Technology.ValueMutated) {
             Technology.ValueMutated<Data> vm = (Technology.ValueMutated<Data>)bp;
@@ -112,6 +130,20 @@ public final class Bindings<Data> {
         }
     }
     
+    boolean arrayMutated(int index, int at, int removed, Object[] inserted) {
+        if (bp instanceof Technology.ArrayMutated) {
+            Technology.ArrayMutated<Data> am = (Technology.ArrayMutated<Data>)bp;
+            Object[] arr = new Object[inserted.length];
+            for (int i = 0; i < arr.length; i++) {
+                Object r = JSON.find(inserted[i], this);
+                arr[i] = r != null ? r : inserted[i];
+            }
+            am.arrayMutated(data, names[index], at, removed, arr);
+            return true;
+        }
+        return false;
+    }
+
     public void applyBindings(String id) {
         if (bp instanceof Technology.ApplyId) {
             Technology.ApplyId<Data> ai = (Technology.ApplyId<Data>) bp;
@@ -45,13 +45,19 @@ package org.netbeans.html.json.impl;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import net.java.html.BrwsrCtx;
 import org.netbeans.html.context.spi.Contexts;
 import org.netbeans.html.json.spi.FunctionBinding;
 import org.netbeans.html.json.spi.JSONCall;
+import org.netbeans.html.json.spi.JSONReader;
 import org.netbeans.html.json.spi.PropertyBinding;
 import org.netbeans.html.json.spi.Proto;
 import org.netbeans.html.json.spi.Technology;
@@ -89,6 +95,14 @@ public final class JSON {
         }
     }
     public static void extract(BrwsrCtx c, Object value, String[] props, Object[] values) {
+        if (value instanceof Row) {
+            ((Row)value).extract(props, values);
+            return;
+        }
+        if (value instanceof Tree) {
+            ((Tree)value).extract(props, values);
+            return;
+        }
         Transfer t = findTransfer(c);
         t.extract(value, props, values);
     }
@@ -124,16 +138,38 @@ public final class JSON {
                     case '\n': sb.append("\\n"); break;
                     case '\r': sb.append("\\r"); break;
                     case '\t': sb.append("\\t"); break;
+                    case '\b': sb.append("\\b"); break;
+                    case '\f': sb.append("\\f"); break;
                     case '\\': sb.append("\\\\"); break;
-                    default: sb.append(ch);
+                    default:
+                        if (ch < 0x20) {
+                            sb.append("\\u00").append(HEX[ch >> 4]).append(HEX[ch & 0xf]);
+                        } else if (ch < Character.MIN_SURROGATE || ch > Character.MAX_SURROGATE) {
+                            sb.append(ch);
+                        } else if (Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                            sb.append(ch).append(s.charAt(++i));
+                        } else {
+                            // unpaired surrogate cannot be encoded in UTF-8
+                            sb.append("\\u").append(HEX[ch >> 12]).append(HEX[(ch >> 8) & 0xf])
+                                .append(HEX[(ch >> 4) & 0xf]).append(HEX[ch & 0xf]);
+                        }
                 }
             }
             sb.append('"');
             return sb.toString();
         }
+        if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                // no such literals in JSON, behave like JSON.stringify
+                return "null";
+            }
+        }
         return value.toString();
     }
 
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
     public static String toString(BrwsrCtx c, Object obj, String prop) {
         obj = getProperty(c, obj, prop);
         return obj == null ? null : obj.toString();
@@ -368,28 +404,17 @@ public final class JSON {
 
     }
 
-    private static final Map<Class,Proto.Type<?>> modelTypes;
-    static {
-        modelTypes = new HashMap<Class, Proto.Type<?>>();
-    }
+    private static final ModelTypes modelTypes = ModelTypes.create();
     public static void register(Class c, Proto.Type<?> type) {
-        modelTypes.put(c, type);
+        modelTypes.register(c, type);
     }
 
     public static boolean isModel(Class<?> clazz) {
         return findType(clazz) != null;
     }
 
-    static Proto.Type<?> findType(Class<?> clazz) {
-        for (int i = 0; i < 2; i++) {
-            Proto.Type<?> from = modelTypes.get(clazz);
-            if (from == null) {
-                initClass(clazz);
-            } else {
-                return from;
-            }
-        }
-        return null;
+    public static Proto.Type<?> findType(Class<?> clazz) {
+        return modelTypes.find(clazz);
     }
 
     public static <Model> Model bindTo(Model model, BrwsrCtx c) {
@@ -407,9 +432,7 @@ public final class JSON {
         if (rawJSON instanceof Object[]) {
             final Object[] arr = (Object[])rawJSON;
             if (collectTo != null) {
-                for (int i = 0; i < arr.length; i++) {
-                    collectTo.add(read(c, modelClazz, arr[i]));
-                }
+                readArray(c, modelClazz, arr, collectTo);
                 return null;
             }
             if (arr.length == 0) {
@@ -430,31 +453,262 @@ public final class JSON {
         if (modelClazz == String.class) {
             return modelClazz.cast(data.toString());
         }
-        for (int i = 0; i < 2; i++) {
-            Proto.Type<?> from = modelTypes.get(modelClazz);
-            if (from == null) {
-                initClass(modelClazz);
-            } else {
-                return modelClazz.cast(PropertyBindingAccessor.readFrom(from, c, data));
+        Proto.Type<?> from = findType(modelClazz);
+        if (from == null) {
+            throw new NullPointerException();
+        }
+        return modelClazz.cast(PropertyBindingAccessor.readFrom(from, c, data));
+    }
+    public static <T> T readJSON(BrwsrCtx c, Class<T> modelClazz, JSONReader in) throws IOException {
+        Proto.Type<?> from = findModelType(modelClazz);
+        if (in.peek() == JSONReader.Token.BEGIN_ARRAY) {
+            in.beginArray();
+            if (!in.hasNext()) {
+                throw new EOFException("Recieved an empty array");
+            }
+            T value = from.readValue(c, modelClazz, in);
+            if (in.hasNext()) {
+                throw new IOException("Expecting single element array, but found " + in.peek());
+            }
+            in.endArray();
+            expectEnd(in);
+            return value;
+        }
+        T value = from.readValue(c, modelClazz, in);
+        expectEnd(in);
+        return value;
+    }
+
+    public static <T> void readJSON(
+        BrwsrCtx c, Class<T> modelClazz, JSONReader in, Collection<? super T> collectTo
+    ) throws IOException {
+        Proto.Type<?> from = findModelType(modelClazz);
+        from.readArray(c, modelClazz, in, collectTo);
+        expectEnd(in);
+    }
+
+    /** Verifies there is nothing but whitespace after the JSON value.
+     */
+    private static void expectEnd(JSONReader in) throws IOException {
+        JSONReader.Token t = in.peek();
+        if (t != JSONReader.Token.END_DOCUMENT) {
+            throw new IOException("Expecting end of input, but found " + t);
+        }
+    }
+
+    /** Reads a JSON value into a tree understood by
+     * {@link #extract(net.java.html.BrwsrCtx, java.lang.Object, java.lang.String[], java.lang.Object[])}.
+     * Objects are represented as {@link Tree}, arrays as <code>Object[]</code>.
+     *
+     * @param in the stream to read from
+     * @return the value
+     * @throws IOException if the stream cannot be read
+     */
+    public static Object readTree(JSONReader in) throws IOException {
+        switch (in.peek()) {
+            case BEGIN_OBJECT: {
+                Tree obj = new Tree();
+                in.beginObject();
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    obj.values.put(name, readTree(in));
+                }
+                in.endObject();
+                return obj;
+            }
+            case BEGIN_ARRAY: {
+                List<Object> arr = new ArrayList<Object>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    arr.add(readTree(in));
+                }
+                in.endArray();
+                return arr.toArray();
             }
+            default:
+                return in.nextValue();
         }
-        throw new NullPointerException();
     }
+
+    public static <T> Iterator<T> iterateJSON(BrwsrCtx c, Class<T> modelClazz, JSONReader in) {
+        Proto.Type<?> from = findModelType(modelClazz);
+        return new Elements<T>(c, modelClazz, from, in);
+    }
+
+    private static Proto.Type<?> findModelType(Class<?> modelClazz) {
+        Proto.Type<?> from = findType(modelClazz);
+        if (from == null) {
+            throw new IllegalArgumentException("Not a model class: " + modelClazz);
+        }
+        return from;
+    }
+
+    /** Reads elements of a JSON array one by one, as they are requested.
+     */
+    private static final class Elements<T> implements Iterator<T> {
+        private static final int START = 0;
+        private static final int ARRAY = 1;
+        private static final int SINGLE = 2;
+        private static final int DONE = 3;
+
+        private final BrwsrCtx c;
+        private final Class<T> modelClazz;
+        private final Proto.Type<?> from;
+        private final JSONReader in;
+        private int state;
+
+        Elements(BrwsrCtx c, Class<T> modelClazz, Proto.Type<?> from, JSONReader in) {
+            this.c = c;
+            this.modelClazz = modelClazz;
+            this.from = from;
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                if (state == START) {
+                    switch (in.peek()) {
+                        case BEGIN_ARRAY:
+                            in.beginArray();
+                            state = ARRAY;
+                            break;
+                        case NULL:
+                            in.nextNull();
+                            state = DONE;
+                            break;
+                        default:
+                            state = SINGLE;
+                    }
+                }
+                if (state == ARRAY && !in.hasNext()) {
+                    in.endArray();
+                    expectEnd(in);
+                    state = DONE;
+                }
+                return state != DONE;
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                T value = from.readValue(c, modelClazz, in);
+                if (state == SINGLE) {
+                    expectEnd(in);
+                    state = DONE;
+                }
+                return value;
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    public static <T> void readArray(BrwsrCtx c, Class<T> modelClazz, Object[] data, Collection<? super T> collectTo) {
+        Transfer t = findTransfer(c);
+        Proto.Type<?> from = null;
+        if (t instanceof Transfer.BatchExtract && data.length > 1 && modelClazz != String.class) {
+            from = findType(modelClazz);
+        }
+        if (from == null) {
+            for (int i = 0; i < data.length; i++) {
+                collectTo.add(read(c, modelClazz, data[i]));
+            }
+            return;
+        }
+        Rows rows = new Rows((Transfer.BatchExtract) t, data);
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == null) {
+                collectTo.add(null);
+                continue;
+            }
+            Object m = PropertyBindingAccessor.readFrom(from, c, new Row(rows, i));
+            collectTo.add(modelClazz.cast(m));
+        }
+    }
+
+    /** Matrix of property values of all elements of an array. Filled
+     * by a single {@link Transfer.BatchExtract} call when the first
+     * of the elements asks for its properties.
+     */
+    private static final class Rows {
+        private final Transfer.BatchExtract transfer;
+        private final Object[] data;
+        private String[] props;
+        private Object[] values;
+
+        Rows(Transfer.BatchExtract transfer, Object[] data) {
+            this.transfer = transfer;
+            this.data = data;
+        }
+
+        boolean extract(int row, String[] names, Object[] to) {
+            if (props == null) {
+                props = names;
+                values = new Object[data.length * names.length];
+                transfer.extract(data, names, values);
+            } else if (props != names && !Arrays.equals(props, names)) {
+                return false;
+            }
+            System.arraycopy(values, row * names.length, to, 0, names.length);
+            return true;
+        }
+    }
+
+    /** Element of an array which is being read by
+     * {@link #readArray(net.java.html.BrwsrCtx, java.lang.Class, java.lang.Object[], java.util.Collection)}.
+     */
+    private static final class Row {
+        private final Rows rows;
+        private final int index;
+
+        Row(Rows rows, int index) {
+            this.rows = rows;
+            this.index = index;
+        }
+
+        void extract(String[] props, Object[] values) {
+            if (!rows.extract(index, props, values)) {
+                rows.transfer.extract(rows.data[index], props, values);
+            }
+        }
+    }
+
+    /** JSON object read by {@link #readTree(org.netbeans.html.json.spi.JSONReader)}.
+     */
+    private static final class Tree {
+        final Map<String,Object> values = new HashMap<String,Object>();
+
+        void extract(String[] props, Object[] to) {
+            for (int i = 0; i < props.length; i++) {
+                to[i] = values.get(props[i]);
+            }
+        }
+    }
+
     static void initClass(Class<?> modelClazz) {
         try {
-            // try to resolve the class
+            // initialize the class, its static Proto.Type registers itself
             ClassLoader l;
             try {
                 l = modelClazz.getClassLoader();
             } catch (SecurityException ex) {
                 l = null;
             }
-            if (l != null) {
-                Class.forName(modelClazz.getName(), true, l);
-            }
-            modelClazz.newInstance();
+            Class.forName(modelClazz.getName(), true, l);
         } catch (Exception ex) {
-            // ignore and try again
+            // ignore, not a model class
         }
     }
 
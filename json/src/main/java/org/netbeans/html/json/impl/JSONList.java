@@ -43,40 +43,201 @@
 package org.netbeans.html.json.impl;
 
 import java.lang.reflect.Array;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
 import org.netbeans.html.json.spi.Proto;
 
-/**
+/** Observable list backing array properties of models. Elements are
+ * stored in an array specific to each subclass - lists of
+ * <code>int</code>, <code>double</code> and <code>boolean</code>
+ * elements keep them unboxed.
  *
  * @author Jaroslav Tulach
  */
-public final class JSONList<T> extends ArrayList<T> {
+public abstract class JSONList<T> extends AbstractList<T> implements RandomAccess {
     private final Proto proto;
-    private final String name;
-    private final String[] deps;
+    private final int name;
+    private final int[] deps;
     private final int index;
+    private final Changes changes = new Changes();
+    private int version;
+    private volatile Object koData;
+    private int koDataVersion;
+    private volatile Listener[] listeners = new Listener[0];
 
-    public JSONList(Proto proto, String name, int changeIndex, String... deps) {
+    JSONList(Proto proto, int name, int changeIndex, int... deps) {
         this.proto = proto;
         this.name = name;
         this.deps = deps;
         this.index = changeIndex;
     }
-    
-    public void init(Object values) {
-        int len;
-        if (values == null || (len = Array.getLength(values)) == 0) {
+
+    /** Creates new list for elements of given type.
+     *
+     * @param <T> type of the elements
+     * @param type the type of the elements, primitive types
+     *   <code>int</code>, <code>double</code> and <code>boolean</code>
+     *   select unboxed storage
+     * @param proto the proto object owning the list
+     * @param name index of the property the list represents
+     * @param changeIndex index of the property to report changes as
+     * @param deps indexes of properties depending on the list
+     * @return new, empty list
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> JSONList<T> create(
+        Class<T> type, Proto proto, int name, int changeIndex, int... deps
+    ) {
+        if (type == int.class) {
+            return (JSONList<T>) new Ints(proto, name, changeIndex, deps);
+        }
+        if (type == double.class) {
+            return (JSONList<T>) new Doubles(proto, name, changeIndex, deps);
+        }
+        if (type == boolean.class) {
+            return (JSONList<T>) new Booleans(proto, name, changeIndex, deps);
+        }
+        return new Objects<T>(proto, name, changeIndex, deps);
+    }
+
+    public static int[] toIntArray(List<? extends Number> list) {
+        if (list instanceof Ints) {
+            return ((Ints) list).toIntArray();
+        }
+        int[] arr = new int[list.size()];
+        int i = 0;
+        for (Number n : list) {
+            arr[i++] = intValue(n);
+        }
+        return arr;
+    }
+
+    public static double[] toDoubleArray(List<? extends Number> list) {
+        if (list instanceof Doubles) {
+            return ((Doubles) list).toDoubleArray();
+        }
+        double[] arr = new double[list.size()];
+        int i = 0;
+        for (Number n : list) {
+            arr[i++] = doubleValue(n);
+        }
+        return arr;
+    }
+
+    public static boolean[] toBooleanArray(List<Boolean> list) {
+        if (list instanceof Booleans) {
+            return ((Booleans) list).toBooleanArray();
+        }
+        boolean[] arr = new boolean[list.size()];
+        int i = 0;
+        for (Boolean b : list) {
+            arr[i++] = booleanValue(b);
+        }
+        return arr;
+    }
+
+    public static void setAll(List<Integer> list, int[] values) {
+        if (list instanceof Ints) {
+            ((Ints) list).setAll(values);
             return;
         }
-        for (int i = 0; i < len; i++) {
-            Object data = Array.get(values, i);
-            super.add((T)data);
+        List<Integer> boxed = new ArrayList<Integer>(values.length);
+        for (int v : values) {
+            boxed.add(v);
+        }
+        replaceAll(list, boxed);
+    }
+
+    public static void setAll(List<Double> list, double[] values) {
+        if (list instanceof Doubles) {
+            ((Doubles) list).setAll(values);
+            return;
+        }
+        List<Double> boxed = new ArrayList<Double>(values.length);
+        for (double v : values) {
+            boxed.add(v);
+        }
+        replaceAll(list, boxed);
+    }
+
+    public static void setAll(List<Boolean> list, boolean[] values) {
+        if (list instanceof Booleans) {
+            ((Booleans) list).setAll(values);
+            return;
+        }
+        List<Boolean> boxed = new ArrayList<Boolean>(values.length);
+        for (boolean v : values) {
+            boxed.add(v);
+        }
+        replaceAll(list, boxed);
+    }
+
+    private static <T> void replaceAll(List<T> list, List<T> values) {
+        list.clear();
+        list.addAll(values);
+    }
+
+    /** Converts an element of an <code>int</code> list. <code>null</code>
+     * is treated as <code>0</code>, as when the value comes from JSON.
+     */
+    static int intValue(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    static double doubleValue(Object value) {
+        return value == null ? 0 : ((Number) value).doubleValue();
+    }
+
+    static boolean booleanValue(Object value) {
+        return value == null ? false : (Boolean) value;
+    }
+
+    /** Copy of the content in the storage specific array.
+     * @return new array
+     */
+    abstract Object raw();
+
+    /** Type of primitive array used as a storage.
+     * @return the array type or <code>null</code>, if elements are
+     *   objects that may need conversion
+     */
+    abstract Class<?> rawType();
+
+    /** Converts values to the storage specific array.
+     * @param values array of values
+     * @return new array
+     */
+    abstract Object toRaw(Object values);
+
+    /** Replaces the whole content of the list.
+     * @param raw storage specific array that becomes owned by the list
+     */
+    abstract void setRaw(Object raw);
+
+    abstract T put(int index, Object value);
+
+    abstract void insert(int at, Object[] values);
+
+    abstract void delete(int from, int to);
+
+    abstract boolean same(Object raw1, int index1, Object raw2, int index2);
+
+    abstract Object[] box(Object raw, int from, int to);
+
+    public void init(Object values) {
+        if (values == null || Array.getLength(values) == 0) {
+            return;
         }
+        insert(size(), boxed(values));
+        fireInvalidate();
     }
+
     public static <T> void init(Collection<T> to, Object values) {
         int len;
         if (values == null || (len = Array.getLength(values)) == 0) {
@@ -87,105 +248,214 @@ public final class JSONList<T> extends ArrayList<T> {
             to.add((T)data);
         }
     }
-    
+
+    /** Finds an element by value of its key property.
+     *
+     * @param <T> type of the elements
+     * @param list the list to search
+     * @param key name of the key property of elements
+     * @param value value of the key
+     * @return found element or <code>null</code>
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T findByKey(List<T> list, String key, Object value) {
+        if (list instanceof JSONList) {
+            JSONList<T> jsonList = (JSONList<T>) list;
+            KeyIndex index = null;
+            for (Listener l : jsonList.listeners) {
+                if (l instanceof KeyIndex && ((KeyIndex) l).key().equals(key)) {
+                    index = (KeyIndex) l;
+                }
+            }
+            if (index == null) {
+                index = new KeyIndex(key, jsonList);
+                jsonList.addListener(index);
+            }
+            return (T) index.find(value);
+        }
+        for (T element : list) {
+            if (element != null) {
+                Proto.Type<?> type = JSON.findType(element.getClass());
+                int index = type == null ? -1 : PropertyBindingAccessor.indexOf(type, key);
+                if (index != -1 && JSON.isSame(value, PropertyBindingAccessor.getValue(type, element, index))) {
+                    return element;
+                }
+            }
+        }
+        return null;
+    }
+
+    final Object koData() {
+        Object data = koData;
+        if (data != null && koDataVersion == version) {
+            return data;
+        }
+        final int v = version;
+        data = koData(this, PropertyBindingAccessor.getBindings(proto, true, null));
+        if (v == version) {
+            koDataVersion = v;
+            koData = data;
+        }
+        return data;
+    }
+
     @Override
     public boolean add(T e) {
         prepareChange();
-        boolean ret = super.add(e);
-        notifyChange();
-        return ret;
+        final int at = size();
+        insert(at, new Object[] { e });
+        fireAdded(e);
+        notifyChange(at, 0, e);
+        return true;
     }
 
     @Override
     public boolean addAll(Collection<? extends T> c) {
-        prepareChange();
-        boolean ret = super.addAll(c);
-        notifyChange();
-        return ret;
+        return addAll(size(), c);
     }
 
     @Override
     public boolean addAll(int index, Collection<? extends T> c) {
         prepareChange();
-        boolean ret = super.addAll(index, c);
-        notifyChange();
-        return ret;
+        final Object[] inserted = c.toArray();
+        insert(index, inserted);
+        fireAdded(inserted);
+        notifyChange(index, 0, inserted);
+        return inserted.length > 0;
     }
 
+    /** Replaces content of the list with the provided elements. Only the
+     * differences between the current and new content are reported
+     * as modifications.
+     *
+     * @param c the new content of the list
+     */
     public void fastReplace(Collection<? extends T> c) {
+        replace(toRaw(c.toArray()));
+    }
+
+    /** Replaces content of the list with elements of the provided
+     * primitive array, if the array matches the storage of the list.
+     * Otherwise does nothing.
+     *
+     * @param values the new content of the list
+     * @return <code>true</code> if the content has been replaced
+     */
+    public boolean replaceArray(Object values) {
+        if (values == null || values.getClass() != rawType()) {
+            return false;
+        }
+        replace(toRaw(values));
+        return true;
+    }
+
+    final void replace(Object to) {
         prepareChange();
-        super.clear();
-        super.addAll(c);
-        notifyChange();
+        if (diff(raw(), to)) {
+            setRaw(to);
+            fireInvalidate();
+            scheduleChange();
+        }
     }
 
     @Override
     public boolean remove(Object o) {
         prepareChange();
-        boolean ret = super.remove(o);
-        notifyChange();
-        return ret;
+        final int at = indexOf(o);
+        if (at == -1) {
+            return false;
+        }
+        Object removed = get(at);
+        delete(at, at + 1);
+        fireRemoved(removed);
+        notifyChange(at, 1);
+        return true;
     }
 
     @Override
     public void clear() {
         prepareChange();
-        super.clear();
-        notifyChange();
+        final int removed = size();
+        delete(0, removed);
+        fireInvalidate();
+        notifyChange(0, removed);
     }
 
     @Override
     public boolean removeAll(Collection<?> c) {
-        prepareChange();
-        boolean ret = super.removeAll(c);
-        notifyChange();
-        return ret;
+        return retain(c, false);
     }
 
-    public void sort(Comparator<? super T> c) {
-        Object[] arr = this.toArray();
-        Arrays.sort(arr, (Comparator<Object>) c);
-        for (int i = 0; i < arr.length; i++) {
-            super.set(i, (T) arr[i]);
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return retain(c, true);
+    }
+
+    private boolean retain(Collection<?> c, boolean contained) {
+        prepareChange();
+        final Object[] arr = toArray();
+        final List<Object> keep = new ArrayList<Object>(arr.length);
+        for (Object o : arr) {
+            if (c.contains(o) == contained) {
+                keep.add(o);
+            }
         }
+        if (keep.size() == arr.length) {
+            return false;
+        }
+        setRaw(toRaw(keep.toArray()));
+        fireInvalidate();
         notifyChange();
+        return true;
     }
 
-    @Override
-    public boolean retainAll(Collection<?> c) {
+    public void sort(Comparator<? super T> c) {
         prepareChange();
-        boolean ret = super.retainAll(c);
+        Object[] arr = this.toArray();
+        Arrays.sort(arr, (Comparator<Object>) c);
+        setRaw(toRaw(arr));
         notifyChange();
-        return ret;
     }
 
     @Override
     public T set(int index, T element) {
         prepareChange();
-        T ret = super.set(index, element);
-        notifyChange();
+        T ret = put(index, element);
+        fireRemoved(ret);
+        fireAdded(element);
+        notifyChange(index, 1, element);
         return ret;
     }
 
     @Override
     public void add(int index, T element) {
         prepareChange();
-        super.add(index, element);
-        notifyChange();
+        insert(index, new Object[] { element });
+        fireAdded(element);
+        notifyChange(index, 0, element);
     }
 
     @Override
     public T remove(int index) {
         prepareChange();
-        T ret = super.remove(index);
-        notifyChange();
+        T ret = get(index);
+        delete(index, index + 1);
+        fireRemoved(ret);
+        notifyChange(index, 1);
         return ret;
     }
 
     @Override
     protected void removeRange(int fromIndex, int toIndex) {
-        super.removeRange(fromIndex, toIndex);
-        notifyChange();
+        prepareChange();
+        delete(fromIndex, toIndex);
+        fireInvalidate();
+        notifyChange(fromIndex, toIndex - fromIndex);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return box(raw(), 0, size());
     }
 
     @Override
@@ -217,22 +487,174 @@ public final class JSONList<T> extends ArrayList<T> {
         }
     }
 
+    final synchronized void addListener(Listener l) {
+        Listener[] arr = Arrays.copyOf(listeners, listeners.length + 1);
+        arr[listeners.length] = l;
+        listeners = arr;
+    }
+
+    final synchronized void removeListener(Listener l) {
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == l) {
+                Listener[] arr = new Listener[listeners.length - 1];
+                System.arraycopy(listeners, 0, arr, 0, i);
+                System.arraycopy(listeners, i + 1, arr, i, arr.length - i);
+                listeners = arr;
+                return;
+            }
+        }
+    }
+
+    private void fireAdded(Object... elements) {
+        for (Listener l : listeners) {
+            for (Object e : elements) {
+                l.added(e);
+            }
+        }
+    }
+
+    private void fireRemoved(Object element) {
+        for (Listener l : listeners) {
+            l.removed(element);
+        }
+    }
+
+    private void fireInvalidate() {
+        for (Listener l : listeners) {
+            l.invalidate();
+        }
+    }
+
+    /** Observer of modifications of a list and its elements.
+     */
+    public static abstract class Listener {
+        /** An element has been added to the list.
+         * @param element the element
+         */
+        public abstract void added(Object element);
+
+        /** An element has been removed from the list.
+         * @param element the element
+         */
+        public abstract void removed(Object element);
+
+        /** Content of the list has changed in an unspecified way.
+         */
+        public abstract void invalidate();
+
+        /** A property of a model has changed. Delivered only for models
+         * the listener {@link PropertyBindingAccessor#listen registered}
+         * itself to.
+         *
+         * @param model the model whose property has changed
+         */
+        public void mutated(Object model) {
+        }
+    }
+
+    private void notifyChange(int at, int removed, Object... inserted) {
+        if (removed == 0 && inserted.length == 0) {
+            return;
+        }
+        changes.splice(at, removed, inserted);
+        scheduleChange();
+    }
+
     private void notifyChange() {
-        proto.getContext().execute(new Runnable() {
-            @Override
-            public void run() {
-                Bindings m = PropertyBindingAccessor.getBindings(proto, false, null);
-                if (m != null) {
-                    m.valueHasMutated(name, null, JSONList.this);
-                    for (String dependant : deps) {
-                        m.valueHasMutated(dependant, null, null);
-                    }
-                    if (index >= 0) {
-                        PropertyBindingAccessor.notifyProtoChange(proto, index);
-                    }
+        changes.reset();
+        scheduleChange();
+    }
+
+    private void scheduleChange() {
+        version++;
+        koData = null;
+        PropertyBindingAccessor.invalidate(proto, name);
+        for (int dependant : deps) {
+            PropertyBindingAccessor.invalidate(proto, dependant);
+        }
+        if (!Batch.execute(proto, changes)) {
+            proto.getContext().execute(changes);
+        }
+    }
+
+    private static final int MAX_DIFF = 1 << 18;
+
+    /** Computes differences between two arrays and records them as
+     * splices. The common prefix and suffix is skipped, the rest is
+     * compared by longest common subsequence unless it is too large.
+     *
+     * @return <code>true</code> if there are any differences
+     */
+    private boolean diff(Object from, Object to) {
+        final int fromLength = Array.getLength(from);
+        final int toLength = Array.getLength(to);
+        int prefix = 0;
+        while (prefix < fromLength && prefix < toLength && same(from, prefix, to, prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (
+            suffix < fromLength - prefix && suffix < toLength - prefix &&
+            same(from, fromLength - 1 - suffix, to, toLength - 1 - suffix)
+        ) {
+            suffix++;
+        }
+        final int a = fromLength - prefix - suffix;
+        final int b = toLength - prefix - suffix;
+        if (a == 0 && b == 0) {
+            return false;
+        }
+        if (a == 0 || b == 0 || (long) a * b > MAX_DIFF) {
+            changes.splice(prefix, a, box(to, prefix, prefix + b));
+            return true;
+        }
+        int[][] lcs = new int[a + 1][b + 1];
+        for (int i = a - 1; i >= 0; i--) {
+            for (int j = b - 1; j >= 0; j--) {
+                if (same(from, prefix + i, to, prefix + j)) {
+                    lcs[i][j] = lcs[i + 1][j + 1] + 1;
+                } else {
+                    lcs[i][j] = Math.max(lcs[i + 1][j], lcs[i][j + 1]);
+                }
+            }
+        }
+        int pos = prefix;
+        int i = 0;
+        int j = 0;
+        int removed = 0;
+        int insertFrom = 0;
+        while (i < a || j < b) {
+            if (i < a && j < b && same(from, prefix + i, to, prefix + j)) {
+                if (removed > 0 || insertFrom < j) {
+                    changes.splice(pos, removed, box(to, prefix + insertFrom, prefix + j));
+                    pos += j - insertFrom;
                 }
+                pos++;
+                i++;
+                j++;
+                removed = 0;
+                insertFrom = j;
+            } else if (j == b || (i < a && lcs[i + 1][j] >= lcs[i][j + 1])) {
+                removed++;
+                i++;
+            } else {
+                j++;
             }
-        });
+        }
+        if (removed > 0 || insertFrom < j) {
+            changes.splice(pos, removed, box(to, prefix + insertFrom, prefix + j));
+        }
+        return true;
+    }
+
+    static boolean same(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a instanceof String || a instanceof Number || a instanceof Boolean || a instanceof Character) {
+            return a.equals(b);
+        }
+        return false;
     }
 
     @Override
@@ -240,7 +662,7 @@ public final class JSONList<T> extends ArrayList<T> {
         throw new UnsupportedOperationException();
     }
 
-    static final Object koData(Collection<?> c, Bindings m) {
+    static final Object koData(Collection<?> c, Bindings<?> m) {
         Object[] arr = c.toArray(new Object[c.size()]);
         for (int i = 0; i < arr.length; i++) {
             Object r = JSON.find(arr[i], m);
@@ -251,7 +673,517 @@ public final class JSONList<T> extends ArrayList<T> {
         return m.wrapArray(arr);
     }
 
-    final Object koData() {
-        return koData(this, PropertyBindingAccessor.getBindings(proto, true, null));
+    /** Modifications of the list not yet delivered to the technology.
+     * Either a sequence of splices or a request to refresh the whole list.
+     */
+    private final class Changes implements Runnable {
+        private static final int MAX_SPLICES = 64;
+        private List<Object[]> splices;
+        private boolean reset;
+
+        synchronized void splice(int at, int removed, Object[] inserted) {
+            if (reset) {
+                return;
+            }
+            if (splices == null) {
+                splices = new ArrayList<Object[]>();
+            } else if (splices.size() >= MAX_SPLICES) {
+                reset();
+                return;
+            }
+            splices.add(new Object[] { at, removed, inserted });
+        }
+
+        synchronized void reset() {
+            reset = true;
+            splices = null;
+        }
+
+        @Override
+        public void run() {
+            final List<Object[]> pending;
+            final boolean all;
+            synchronized (this) {
+                pending = splices;
+                all = reset;
+                splices = null;
+                reset = false;
+            }
+            if (pending == null && !all) {
+                return;
+            }
+            Bindings<?> m = PropertyBindingAccessor.getBindings(proto, false, null);
+            if (m != null) {
+                if (all || !arrayMutated(m, pending)) {
+                    m.valueHasMutated(name, null, JSONList.this);
+                }
+                for (int dependant : deps) {
+                    m.valueHasMutated(dependant, null, null);
+                }
+                if (index >= 0) {
+                    PropertyBindingAccessor.notifyProtoChange(proto, index);
+                }
+            }
+        }
+
+        private boolean arrayMutated(Bindings<?> m, List<Object[]> pending) {
+            for (Object[] splice : pending) {
+                if (!m.arrayMutated(name, (Integer) splice[0], (Integer) splice[1], (Object[]) splice[2])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static Object[] boxed(Object values) {
+        if (values instanceof Object[]) {
+            return (Object[]) values;
+        }
+        Object[] arr = new Object[Array.getLength(values)];
+        for (int i = 0; i < arr.length; i++) {
+            arr[i] = Array.get(values, i);
+        }
+        return arr;
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    private static int grow(int length, int required) {
+        if (required < 0) {
+            throw new OutOfMemoryError();
+        }
+        return Math.max(required, length + (length >> 1) + 4);
+    }
+
+    private static void checkRange(int from, int to, int size) {
+        if (from < 0 || to > size || from > to) {
+            throw new IndexOutOfBoundsException("From: " + from + ", To: " + to + ", Size: " + size);
+        }
+    }
+
+    private static final class Objects<T> extends JSONList<T> {
+        private Object[] elements = new Object[0];
+        private int size;
+
+        Objects(Proto proto, int name, int changeIndex, int... deps) {
+            super(proto, name, changeIndex, deps);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            checkIndex(index, size);
+            return (T) elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        T put(int index, Object value) {
+            checkIndex(index, size);
+            Object prev = elements[index];
+            elements[index] = value;
+            return (T) prev;
+        }
+
+        @Override
+        void insert(int at, Object[] values) {
+            checkRange(at, at, size);
+            if (size + values.length > elements.length) {
+                elements = Arrays.copyOf(elements, grow(elements.length, size + values.length));
+            }
+            System.arraycopy(elements, at, elements, at + values.length, size - at);
+            System.arraycopy(values, 0, elements, at, values.length);
+            size += values.length;
+            modCount++;
+        }
+
+        @Override
+        void delete(int from, int to) {
+            checkRange(from, to, size);
+            System.arraycopy(elements, to, elements, from, size - to);
+            Arrays.fill(elements, size - (to - from), size, null);
+            size -= to - from;
+            modCount++;
+        }
+
+        @Override
+        Object raw() {
+            return Arrays.copyOf(elements, size);
+        }
+
+        @Override
+        Class<?> rawType() {
+            return null;
+        }
+
+        @Override
+        Object toRaw(Object values) {
+            Object[] arr = boxed(values);
+            return Arrays.copyOf(arr, arr.length, Object[].class);
+        }
+
+        @Override
+        void setRaw(Object raw) {
+            elements = (Object[]) raw;
+            size = elements.length;
+            modCount++;
+        }
+
+        @Override
+        boolean same(Object raw1, int index1, Object raw2, int index2) {
+            return same(((Object[]) raw1)[index1], ((Object[]) raw2)[index2]);
+        }
+
+        @Override
+        Object[] box(Object raw, int from, int to) {
+            return Arrays.copyOfRange((Object[]) raw, from, to);
+        }
+    }
+
+    /** List of <code>int</code> values kept without boxing.
+     */
+    static final class Ints extends JSONList<Integer> {
+        private int[] elements = new int[0];
+        private int size;
+
+        Ints(Proto proto, int name, int changeIndex, int... deps) {
+            super(proto, name, changeIndex, deps);
+        }
+
+        /** Copies the content of the list.
+         * @return new array with all the elements of the list
+         */
+        public int[] toIntArray() {
+            return Arrays.copyOf(elements, size);
+        }
+
+        /** Replaces the content of the list. Only the differences
+         * are reported as modifications.
+         *
+         * @param values the new content
+         */
+        public void setAll(int[] values) {
+            replace(values.clone());
+        }
+
+        @Override
+        public Integer get(int index) {
+            checkIndex(index, size);
+            return elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        Integer put(int index, Object value) {
+            checkIndex(index, size);
+            int prev = elements[index];
+            elements[index] = intValue(value);
+            return prev;
+        }
+
+        @Override
+        void insert(int at, Object[] values) {
+            checkRange(at, at, size);
+            int[] arr = (int[]) toRaw(values);
+            if (size + arr.length > elements.length) {
+                elements = Arrays.copyOf(elements, grow(elements.length, size + arr.length));
+            }
+            System.arraycopy(elements, at, elements, at + arr.length, size - at);
+            System.arraycopy(arr, 0, elements, at, arr.length);
+            size += arr.length;
+            modCount++;
+        }
+
+        @Override
+        void delete(int from, int to) {
+            checkRange(from, to, size);
+            System.arraycopy(elements, to, elements, from, size - to);
+            size -= to - from;
+            modCount++;
+        }
+
+        @Override
+        Object raw() {
+            return toIntArray();
+        }
+
+        @Override
+        Class<?> rawType() {
+            return int[].class;
+        }
+
+        @Override
+        Object toRaw(Object values) {
+            if (values instanceof int[]) {
+                return ((int[]) values).clone();
+            }
+            Object[] boxed = boxed(values);
+            int[] arr = new int[boxed.length];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = intValue(boxed[i]);
+            }
+            return arr;
+        }
+
+        @Override
+        void setRaw(Object raw) {
+            elements = (int[]) raw;
+            size = elements.length;
+            modCount++;
+        }
+
+        @Override
+        boolean same(Object raw1, int index1, Object raw2, int index2) {
+            return ((int[]) raw1)[index1] == ((int[]) raw2)[index2];
+        }
+
+        @Override
+        Object[] box(Object raw, int from, int to) {
+            int[] arr = (int[]) raw;
+            Object[] ret = new Object[to - from];
+            for (int i = 0; i < ret.length; i++) {
+                ret[i] = arr[from + i];
+            }
+            return ret;
+        }
+    }
+
+    /** List of <code>double</code> values kept without boxing.
+     */
+    static final class Doubles extends JSONList<Double> {
+        private double[] elements = new double[0];
+        private int size;
+
+        Doubles(Proto proto, int name, int changeIndex, int... deps) {
+            super(proto, name, changeIndex, deps);
+        }
+
+        /** Copies the content of the list.
+         * @return new array with all the elements of the list
+         */
+        public double[] toDoubleArray() {
+            return Arrays.copyOf(elements, size);
+        }
+
+        /** Replaces the content of the list. Only the differences
+         * are reported as modifications.
+         *
+         * @param values the new content
+         */
+        public void setAll(double[] values) {
+            replace(values.clone());
+        }
+
+        @Override
+        public Double get(int index) {
+            checkIndex(index, size);
+            return elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        Double put(int index, Object value) {
+            checkIndex(index, size);
+            double prev = elements[index];
+            elements[index] = doubleValue(value);
+            return prev;
+        }
+
+        @Override
+        void insert(int at, Object[] values) {
+            checkRange(at, at, size);
+            double[] arr = (double[]) toRaw(values);
+            if (size + arr.length > elements.length) {
+                elements = Arrays.copyOf(elements, grow(elements.length, size + arr.length));
+            }
+            System.arraycopy(elements, at, elements, at + arr.length, size - at);
+            System.arraycopy(arr, 0, elements, at, arr.length);
+            size += arr.length;
+            modCount++;
+        }
+
+        @Override
+        void delete(int from, int to) {
+            checkRange(from, to, size);
+            System.arraycopy(elements, to, elements, from, size - to);
+            size -= to - from;
+            modCount++;
+        }
+
+        @Override
+        Object raw() {
+            return toDoubleArray();
+        }
+
+        @Override
+        Class<?> rawType() {
+            return double[].class;
+        }
+
+        @Override
+        Object toRaw(Object values) {
+            if (values instanceof double[]) {
+                return ((double[]) values).clone();
+            }
+            Object[] boxed = boxed(values);
+            double[] arr = new double[boxed.length];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = doubleValue(boxed[i]);
+            }
+            return arr;
+        }
+
+        @Override
+        void setRaw(Object raw) {
+            elements = (double[]) raw;
+            size = elements.length;
+            modCount++;
+        }
+
+        @Override
+        boolean same(Object raw1, int index1, Object raw2, int index2) {
+            return Double.doubleToLongBits(((double[]) raw1)[index1]) ==
+                Double.doubleToLongBits(((double[]) raw2)[index2]);
+        }
+
+        @Override
+        Object[] box(Object raw, int from, int to) {
+            double[] arr = (double[]) raw;
+            Object[] ret = new Object[to - from];
+            for (int i = 0; i < ret.length; i++) {
+                ret[i] = arr[from + i];
+            }
+            return ret;
+        }
+    }
+
+    /** List of <code>boolean</code> values kept without boxing.
+     */
+    static final class Booleans extends JSONList<Boolean> {
+        private boolean[] elements = new boolean[0];
+        private int size;
+
+        Booleans(Proto proto, int name, int changeIndex, int... deps) {
+            super(proto, name, changeIndex, deps);
+        }
+
+        /** Copies the content of the list.
+         * @return new array with all the elements of the list
+         */
+        public boolean[] toBooleanArray() {
+            return Arrays.copyOf(elements, size);
+        }
+
+        /** Replaces the content of the list. Only the differences
+         * are reported as modifications.
+         *
+         * @param values the new content
+         */
+        public void setAll(boolean[] values) {
+            replace(values.clone());
+        }
+
+        @Override
+        public Boolean get(int index) {
+            checkIndex(index, size);
+            return elements[index];
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        Boolean put(int index, Object value) {
+            checkIndex(index, size);
+            boolean prev = elements[index];
+            elements[index] = booleanValue(value);
+            return prev;
+        }
+
+        @Override
+        void insert(int at, Object[] values) {
+            checkRange(at, at, size);
+            boolean[] arr = (boolean[]) toRaw(values);
+            if (size + arr.length > elements.length) {
+                elements = Arrays.copyOf(elements, grow(elements.length, size + arr.length));
+            }
+            System.arraycopy(elements, at, elements, at + arr.length, size - at);
+            System.arraycopy(arr, 0, elements, at, arr.length);
+            size += arr.length;
+            modCount++;
+        }
+
+        @Override
+        void delete(int from, int to) {
+            checkRange(from, to, size);
+            System.arraycopy(elements, to, elements, from, size - to);
+            size -= to - from;
+            modCount++;
+        }
+
+        @Override
+        Object raw() {
+            return toBooleanArray();
+        }
+
+        @Override
+        Class<?> rawType() {
+            return boolean[].class;
+        }
+
+        @Override
+        Object toRaw(Object values) {
+            if (values instanceof boolean[]) {
+                return ((boolean[]) values).clone();
+            }
+            Object[] boxed = boxed(values);
+            boolean[] arr = new boolean[boxed.length];
+            for (int i = 0; i < arr.length; i++) {
+                arr[i] = booleanValue(boxed[i]);
+            }
+            return arr;
+        }
+
+        @Override
+        void setRaw(Object raw) {
+            elements = (boolean[]) raw;
+            size = elements.length;
+            modCount++;
+        }
+
+        @Override
+        boolean same(Object raw1, int index1, Object raw2, int index2) {
+            return ((boolean[]) raw1)[index1] == ((boolean[]) raw2)[index2];
+        }
+
+        @Override
+        Object[] box(Object raw, int from, int to) {
+            boolean[] arr = (boolean[]) raw;
+            Object[] ret = new Object[to - from];
+            for (int i = 0; i < ret.length; i++) {
+                ret[i] = arr[from + i];
+            }
+            return ret;
+        }
     }
 }
@@ -0,0 +1,190 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.netbeans.html.json.spi.Proto;
+
+/** Hash index from values of a key property of list elements to
+ * the elements. Updated as the list is modified and as the key
+ * property of the elements changes.
+ */
+final class KeyIndex extends JSONList.Listener {
+    private final String key;
+    private final JSONList<?> list;
+    private final Map<Object, Object> elements = new HashMap<Object, Object>();
+    private final Map<Object, Object> keys = new IdentityHashMap<Object, Object>();
+    private final Map<Object, int[]> watched = new IdentityHashMap<Object, int[]>();
+    private Proto.Type<?> type;
+    private int keyIndex = -1;
+    private boolean duplicates;
+    private boolean valid;
+
+    KeyIndex(String key, JSONList<?> list) {
+        this.key = key;
+        this.list = list;
+    }
+
+    final String key() {
+        return key;
+    }
+
+    synchronized Object find(Object value) {
+        if (!valid) {
+            rebuild();
+        }
+        return elements.get(value);
+    }
+
+    @Override
+    public synchronized void added(Object element) {
+        if (valid && element != null) {
+            add(element);
+        }
+    }
+
+    @Override
+    public synchronized void removed(Object element) {
+        if (valid && element != null) {
+            int[] cnt = watched.get(element);
+            if (cnt == null) {
+                return;
+            }
+            if (--cnt[0] > 0) {
+                valid = !duplicates;
+                return;
+            }
+            watched.remove(element);
+            PropertyBindingAccessor.listen(element, this, false);
+            Object k = keys.remove(element);
+            if (elements.get(k) == element) {
+                elements.remove(k);
+                if (duplicates) {
+                    valid = false;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void invalidate() {
+        valid = false;
+    }
+
+    @Override
+    public synchronized void mutated(Object model) {
+        if (!valid || !keys.containsKey(model)) {
+            return;
+        }
+        Object prev = keys.get(model);
+        Object now = keyOf(model);
+        if (JSON.isSame(prev, now)) {
+            return;
+        }
+        keys.put(model, now);
+        if (elements.get(prev) == model) {
+            elements.remove(prev);
+            if (duplicates) {
+                valid = false;
+                return;
+            }
+        }
+        if (elements.containsKey(now)) {
+            duplicates = true;
+        } else {
+            elements.put(now, model);
+        }
+    }
+
+    private void add(Object element) {
+        int[] cnt = watched.get(element);
+        if (cnt != null) {
+            cnt[0]++;
+            duplicates = true;
+            return;
+        }
+        watched.put(element, new int[] { 1 });
+        PropertyBindingAccessor.listen(element, this, true);
+        Object k = keyOf(element);
+        keys.put(element, k);
+        if (elements.containsKey(k)) {
+            duplicates = true;
+        } else {
+            elements.put(k, element);
+        }
+    }
+
+    private void rebuild() {
+        for (Object e : watched.keySet()) {
+            PropertyBindingAccessor.listen(e, this, false);
+        }
+        watched.clear();
+        keys.clear();
+        elements.clear();
+        duplicates = false;
+        valid = true;
+        for (Object element : list) {
+            if (element != null) {
+                add(element);
+            }
+        }
+    }
+
+    private Object keyOf(Object element) {
+        if (type == null) {
+            Proto.Type<?> t = JSON.findType(element.getClass());
+            if (t == null) {
+                throw new IllegalStateException("Not a model: " + element.getClass());
+            }
+            int index = PropertyBindingAccessor.indexOf(t, key);
+            if (index == -1) {
+                throw new IllegalStateException("No property " + key + " in " + element.getClass());
+            }
+            type = t;
+            keyIndex = index;
+        }
+        return PropertyBindingAccessor.getValue(type, element, keyIndex);
+    }
+}
@@ -0,0 +1,305 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import net.java.html.json.Models;
+
+/** Filtered and sorted view of a {@link JSONList}. Observes modifications
+ * of the source list and properties of its elements and applies them
+ * to the target list one element at a time.
+ */
+public final class LiveView<T> extends JSONList.Listener implements Closeable {
+    private final List<T> source;
+    private final List<T> target;
+    private final Models.Filter<? super T> filter;
+    private final Comparator<? super T> order;
+    /** number of occurrences of each element in the source */
+    private final Map<Object, int[]> watched = new IdentityHashMap<Object, int[]>();
+    /** number of occurrences of each element in the target */
+    private final Map<Object, int[]> shown = new IdentityHashMap<Object, int[]>();
+    private boolean closed;
+
+    private LiveView(
+        List<T> source, List<T> target,
+        Models.Filter<? super T> filter, Comparator<? super T> order
+    ) {
+        this.source = source;
+        this.target = target;
+        this.filter = filter;
+        this.order = order;
+    }
+
+    public static <T> Closeable create(
+        List<T> source, List<T> target,
+        Models.Filter<? super T> filter, Comparator<? super T> order
+    ) {
+        if (!(source instanceof JSONList) || source == target) {
+            throw new IllegalArgumentException("Not an array property: " + source);
+        }
+        if (order == null) {
+            throw new NullPointerException("order");
+        }
+        LiveView<T> view = new LiveView<T>(source, target, filter, order);
+        ((JSONList<T>) source).addListener(view);
+        view.invalidate();
+        return view;
+    }
+
+    /** Stops observing the source list and its elements. The target
+     * keeps its current content.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        ((JSONList<T>) source).removeListener(this);
+        for (Object e : watched.keySet()) {
+            PropertyBindingAccessor.listen(e, this, false);
+        }
+        watched.clear();
+        shown.clear();
+    }
+
+    @Override
+    public synchronized void added(Object element) {
+        if (element == null || closed) {
+            return;
+        }
+        int[] cnt = watched.get(element);
+        if (cnt == null) {
+            watched.put(element, cnt = new int[1]);
+            PropertyBindingAccessor.listen(element, this, true);
+        }
+        cnt[0]++;
+        T e = cast(element);
+        if (accept(e)) {
+            insert(e);
+        }
+    }
+
+    @Override
+    public synchronized void removed(Object element) {
+        if (element == null) {
+            return;
+        }
+        int[] cnt = watched.get(element);
+        if (cnt == null) {
+            return;
+        }
+        if (--cnt[0] == 0) {
+            watched.remove(element);
+            PropertyBindingAccessor.listen(element, this, false);
+        }
+        int at = indexOf(element);
+        if (at >= 0) {
+            removeAt(at);
+        }
+    }
+
+    @Override
+    public synchronized void invalidate() {
+        if (closed) {
+            return;
+        }
+        for (Object e : watched.keySet()) {
+            PropertyBindingAccessor.listen(e, this, false);
+        }
+        watched.clear();
+        List<T> view = new ArrayList<T>();
+        for (T e : source) {
+            if (e == null) {
+                continue;
+            }
+            int[] cnt = watched.get(e);
+            if (cnt == null) {
+                watched.put(e, cnt = new int[1]);
+                PropertyBindingAccessor.listen(e, this, true);
+            }
+            cnt[0]++;
+            if (accept(e)) {
+                view.add(e);
+            }
+        }
+        Collections.sort(view, order);
+        shown.clear();
+        for (T e : view) {
+            count(shown, e, 1);
+        }
+        if (target instanceof JSONList) {
+            ((JSONList<T>) target).fastReplace(view);
+        } else {
+            target.clear();
+            target.addAll(view);
+        }
+    }
+
+    @Override
+    public synchronized void mutated(Object element) {
+        if (closed) {
+            return;
+        }
+        int[] cnt = watched.get(element);
+        if (cnt == null) {
+            return;
+        }
+        T e = cast(element);
+        final boolean accept = accept(e);
+        int at = indexOf(element);
+        if (accept && at >= 0 && cnt[0] == 1 && inOrder(at)) {
+            return;
+        }
+        while (at >= 0) {
+            removeAt(at);
+            at = indexOf(element);
+        }
+        if (accept) {
+            for (int i = 0; i < cnt[0]; i++) {
+                insert(e);
+            }
+        }
+    }
+
+    private void insert(T element) {
+        target.add(position(element), element);
+        count(shown, element, 1);
+    }
+
+    private void removeAt(int at) {
+        count(shown, target.remove(at), -1);
+    }
+
+    private static void count(Map<Object, int[]> counts, Object element, int delta) {
+        int[] cnt = counts.get(element);
+        if (cnt == null) {
+            counts.put(element, cnt = new int[1]);
+        }
+        cnt[0] += delta;
+        if (cnt[0] <= 0) {
+            counts.remove(element);
+        }
+    }
+
+    private boolean accept(T element) {
+        return filter == null || filter.accept(element);
+    }
+
+    private boolean inOrder(int at) {
+        T e = target.get(at);
+        if (at > 0 && order.compare(target.get(at - 1), e) > 0) {
+            return false;
+        }
+        return at + 1 >= target.size() || order.compare(e, target.get(at + 1)) <= 0;
+    }
+
+    /** Binary search for the index after the last element not
+     * greater than the provided one.
+     */
+    private int position(T element) {
+        int low = 0;
+        int high = target.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(target.get(mid), element) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Binary search for the index of the first element not
+     * smaller than the provided one.
+     */
+    private int lowerBound(T element) {
+        int low = 0;
+        int high = target.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare(target.get(mid), element) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /** Finds the element in the target. It is looked for among the
+     * elements equal to it according to the order. Only when a property
+     * the order depends on has just changed, the element may be elsewhere
+     * and the whole target is scanned.
+     */
+    private int indexOf(Object element) {
+        if (!shown.containsKey(element)) {
+            return -1;
+        }
+        T e = cast(element);
+        int to = position(e);
+        for (int i = lowerBound(e); i < to; i++) {
+            if (target.get(i) == element) {
+                return i;
+            }
+        }
+        for (int i = 0; i < target.size(); i++) {
+            if (target.get(i) == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Object element) {
+        return (T) element;
+    }
+}
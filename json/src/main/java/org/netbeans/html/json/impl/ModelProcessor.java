@@ -60,6 +60,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.WeakHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -84,6 +85,7 @@ import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.MirroredTypeException;
+import javax.lang.model.type.PrimitiveType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
@@ -261,8 +263,13 @@ public final class ModelProcessor extends AbstractProcessor {
                     if (p.array()) {
                         final String tn = typeName(p);
                         String[] gs = toGetSet(p.name(), tn, p.array());
-                        w.write("    this.prop_" + p.name() + " = proto.createList(\""
-                            + p.name() + "\"");
+                        boolean[] isModel = { false };
+                        boolean[] isEnum = { false };
+                        boolean[] isPrimitive = { false };
+                        String et = checkType(p, isModel, isEnum, isPrimitive);
+                        w.write("    this.prop_" + p.name() + " = proto.createList("
+                            + (isPrimitive[0] ? et : tn) + ".class, "
+                            + indexOf(propsGetSet, p.name()));
                         if (p.mutable()) {
                             if (functionDeps.containsKey(p.name())) {
                                 int index = Arrays.asList(functionDeps.keySet().toArray()).indexOf(p.name());
@@ -273,15 +280,6 @@ public final class ModelProcessor extends AbstractProcessor {
                         } else {
                             w.write(", java.lang.Integer.MIN_VALUE");
                         }
-                        Collection<String[]> dependants = propsDeps.get(p.name());
-                        if (dependants != null) {
-                            for (String[] depProp : dependants) {
-                                w.write(", ");
-                                w.write('\"');
-                                w.write(depProp[0]);
-                                w.write('\"');
-                            }
-                        }
                         w.write(")");
                         w.write(";\n");
                     }
@@ -362,6 +360,26 @@ public final class ModelProcessor extends AbstractProcessor {
                         w.append((i) + ", " + propsGetSet.get(i).readOnly + ", " + propsGetSet.get(i).constant + ");\n");
                     }
                 }
+                {
+                    Map<Integer, StringBuilder> sources = new TreeMap<Integer, StringBuilder>();
+                    for (int i = 0; i < propsGetSet.size(); i++) {
+                        Collection<String[]> dependants = propsDeps.get(propsGetSet.get(i).name);
+                        if (dependants == null) {
+                            continue;
+                        }
+                        for (String[] depProp : dependants) {
+                            final Integer computed = Integer.valueOf(depProp[2]);
+                            StringBuilder sb = sources.get(computed);
+                            if (sb == null) {
+                                sources.put(computed, sb = new StringBuilder());
+                            }
+                            sb.append(", ").append(i);
+                        }
+                    }
+                    for (Map.Entry<Integer, StringBuilder> entry : sources.entrySet()) {
+                        w.append("      registerDependencies(").append(entry.getKey().toString()).append(entry.getValue()).append(");\n");
+                    }
+                }
                 {
                     for (int i = 0; i < functionsCount; i++) {
                         w.append("      registerFunction(\"").append((String)functions.get(i * 2)).append("\", ");
@@ -456,27 +474,21 @@ public final class ModelProcessor extends AbstractProcessor {
                 w.append(onReceiveType);
                 w.append("    @Override public " + className + " read(net.java.html.BrwsrCtx c, Object json) { return new " + className + "(c, json); }\n");
                 w.append("    @Override public " + className + " cloneTo(" + className + " o, net.java.html.BrwsrCtx c) { return o.clone(c); }\n");
+                writeStreaming(className, props, w);
                 w.append("  }\n");
-                w.append("  private ").append(className).append("(net.java.html.BrwsrCtx c, Object json) {\n");
-                w.append("    this(c);\n");
-                int values = 0;
-                for (int i = 0; i < propsGetSet.size(); i++) {
-                    Prprt p = findPrprt(props, propsGetSet.get(i).name);
-                    if (p == null) {
-                        continue;
-                    }
-                    values++;
-                }
-                w.append("    Object[] ret = new Object[" + values + "];\n");
-                w.append("    proto.extract(json, new String[] {\n");
+                w.append("  private static final String[] JSON_NAMES = {\n");
                 for (int i = 0; i < propsGetSet.size(); i++) {
                     Prprt p = findPrprt(props, propsGetSet.get(i).name);
                     if (p == null) {
                         continue;
                     }
-                    w.append("      \"").append(propsGetSet.get(i).name).append("\",\n");
+                    w.append("    \"").append(propsGetSet.get(i).name).append("\",\n");
                 }
-                w.append("    }, ret);\n");
+                w.append("  };\n");
+                w.append("  private ").append(className).append("(net.java.html.BrwsrCtx c, Object json) {\n");
+                w.append("    this(c);\n");
+                w.append("    Object[] ret = proto.extract(json, JSON_NAMES);\n");
+                w.append("    try {\n");
                 for (int i = 0, cnt = 0, prop = 0; i < propsGetSet.size(); i++) {
                     final String pn = propsGetSet.get(i).name;
                     Prprt p = findPrprt(props, pn);
@@ -487,12 +499,11 @@ public final class ModelProcessor extends AbstractProcessor {
                     boolean[] isEnum = { false };
                     boolean isPrimitive[] = { false };
                     String type = checkType(props[prop++], isModel, isEnum, isPrimitive);
-                    if (p.array()) {
+                    if (p.array() && isModel[0]) {
+                        w.append("    proto.read(" + type + ".class, useAsArray(ret[" + cnt + "]), this.prop_").append(pn).append(");\n");
+                    } else if (p.array()) {
                         w.append("    for (Object e : useAsArray(ret[" + cnt + "])) {\n");
-                        if (isModel[0]) {
-                            w.append("      this.prop_").append(pn).append(".add(proto.read");
-                            w.append("(" + type + ".class, e));\n");
-                        } else if (isEnum[0]) {
+                        if (isEnum[0]) {
                             w.append("        this.prop_").append(pn);
                             w.append(".add(e == null ? null : ");
                             w.append(type).append(".valueOf(TYPE.stringValue(e)));\n");
@@ -503,8 +514,8 @@ public final class ModelProcessor extends AbstractProcessor {
                                 } else if (type.equals("boolean")) {
                                     w.append("        this.prop_").append(pn).append(".add(TYPE.boolValue(e));\n");
                                 } else {
-                                    w.append("        this.prop_").append(pn).append(".add(TYPE.numberValue(e).");
-                                    w.append(type).append("Value());\n");
+                                    w.append("        this.prop_").append(pn).append(".add(");
+                                    w.append(primitiveValue(type, "e")).append(");\n");
                                 }
                             } else {
                                 w.append("        this.prop_").append(pn).append(".add((");
@@ -521,18 +532,19 @@ public final class ModelProcessor extends AbstractProcessor {
                             w.append("    } catch (IllegalArgumentException ex) {\n");
                             w.append("      ex.printStackTrace();\n");
                             w.append("    }\n");
-                        } else if (isPrimitive(type)) {
+                        } else if ("char".equals(type) || "boolean".equals(type)) {
                             w.append("    this.prop_").append(pn);
                             w.append(" = ret[" + cnt + "] == null ? ");
                             if ("char".equals(type)) {
                                 w.append("0 : (TYPE.charValue(");
-                            } else if ("boolean".equals(type)) {
-                                w.append("false : (TYPE.boolValue(");
                             } else {
-                                w.append("0 : (TYPE.numberValue(");
+                                w.append("false : (TYPE.boolValue(");
                             }
                             w.append("ret[" + cnt + "])).");
                             w.append(type).append("Value();\n");
+                        } else if (isPrimitive(type)) {
+                            w.append("    this.prop_").append(pn).append(" = ");
+                            w.append(primitiveValue(type, "ret[" + cnt + "]")).append(";\n");
                         } else if (isModel[0]) {
                             w.append("    this.prop_").append(pn).append(" = proto.read");
                             w.append("(" + type + ".class, ");
@@ -545,6 +557,9 @@ public final class ModelProcessor extends AbstractProcessor {
                     }
                     cnt++;
                 }
+                w.append("    } finally {\n");
+                w.append("      proto.release(ret);\n");
+                w.append("    }\n");
                 w.append("  }\n");
                 w.append("  private static Object[] useAsArray(Object o) {\n");
                 w.append("    return o instanceof Object[] ? ((Object[])o) : o == null ? new Object[0] : new Object[] { o };\n");
@@ -656,6 +671,7 @@ public final class ModelProcessor extends AbstractProcessor {
     ) throws IOException {
         boolean ok = true;
         for (Prprt p : properties) {
+            final int index = props.size();
             final String tn;
             tn = typeName(p);
             String[] gs = toGetSet(p.name(), tn, p.array());
@@ -666,21 +682,42 @@ public final class ModelProcessor extends AbstractProcessor {
 
                 castTo = "java.util.List";
                 w.write("  public java.util.List<" + tn + "> " + gs[0] + "() {\n");
-                w.write("    proto.accessProperty(\"" + p.name() + "\");\n");
+                w.write("    proto.accessProperty(" + index + ");\n");
                 w.write("    return prop_" + p.name() + ";\n");
                 w.write("  }\n");
+                if (!p.key().isEmpty()) {
+                    boolean[] isModel = {false};
+                    boolean[] isEnum = {false};
+                    boolean isPrimitive[] = {false};
+                    checkType(p, isModel, isEnum, isPrimitive);
+                    if (isModel[0]) {
+                        String find = "find" + Character.toUpperCase(p.name().charAt(0)) + p.name().substring(1)
+                            + "By" + Character.toUpperCase(p.key().charAt(0)) + p.key().substring(1);
+                        w.write("  public " + tn + " " + find + "(Object key) {\n");
+                        w.write("    proto.accessProperty(" + index + ");\n");
+                        w.write("    return proto.findByKey(prop_" + p.name() + ", \"" + p.key() + "\", key);\n");
+                        w.write("  }\n");
+                    } else {
+                        error("Key " + p.key() + " can only be specified for arrays of models", where);
+                        ok = false;
+                    }
+                }
                 if (builderPrefix != null) {
                     boolean[] isModel = {false};
                     boolean[] isEnum = {false};
                     boolean isPrimitive[] = {false};
                     String ret = checkType(p, isModel, isEnum, isPrimitive);
                     w.write("  public " + className + " " + builderMethod(builderPrefix, p) + "(" + ret + "... v) {\n");
-                    w.write("    proto.accessProperty(\"" + p.name() + "\");\n");
+                    w.write("    proto.accessProperty(" + index + ");\n");
                     w.append("   TYPE.replaceValue(prop_").append(p.name()).append(", " + tn + ".class, v);\n");
                     w.write("    return this;\n");
                     w.write("  }\n");
                 }
             } else {
+                if (!p.key().isEmpty()) {
+                    error("Key " + p.key() + " can only be specified for arrays of models", where);
+                    ok = false;
+                }
                 castTo = tn;
                 boolean isModel[] = { false };
                 boolean isEnum[] = { false };
@@ -693,7 +730,7 @@ public final class ModelProcessor extends AbstractProcessor {
                     w.write("  private " + tn + " prop_" + p.name() + ";\n");
                 }
                 w.write("  public " + tn + " " + gs[0] + "() {\n");
-                w.write("    proto.accessProperty(\"" + p.name() + "\");\n");
+                w.write("    proto.accessProperty(" + index + ");\n");
                 if (isModel[0]) {
                     w.write("    if (prop_" + p.name() + " == this) prop_" + p.name() + " = new " + tn +"();\n");
                 }
@@ -712,15 +749,7 @@ public final class ModelProcessor extends AbstractProcessor {
                     w.write("    if (TYPE.isSame(o , v)) return;\n");
                     w.write("    prop_" + p.name() + " = v;\n");
                 }
-                w.write("    proto.valueHasMutated(\"" + p.name() + "\", o, v);\n");
-                {
-                    Collection<String[]> dependants = deps.get(p.name());
-                    if (dependants != null) {
-                        for (String[] pair : dependants) {
-                            w.write("    proto.valueHasMutated(\"" + pair[0] + "\", null, " + pair[1] + "());\n");
-                        }
-                    }
-                }
+                w.write("    proto.valueHasMutated(" + index + ", o, v);\n");
                 {
                     Collection<String> dependants = functionDeps.get(p.name());
                     if (dependants != null) {
@@ -833,6 +862,7 @@ public final class ModelProcessor extends AbstractProcessor {
                 }
             }
 
+            final int index = props.size();
             String[] gs = toGetSet(sn, tn, array);
 
             w.write("  public " + tn);
@@ -840,8 +870,10 @@ public final class ModelProcessor extends AbstractProcessor {
                 w.write("<" + toCheck + ">");
             }
             w.write(" " + gs[0] + "() {\n");
+            StringWriter compute = new StringWriter();
             int arg = 0;
             boolean deep = false;
+            boolean model = false;
             for (VariableElement pe : ee.getParameters()) {
                 final String dn = pe.getSimpleName().toString();
 
@@ -850,45 +882,75 @@ public final class ModelProcessor extends AbstractProcessor {
                 }
                 final TypeMirror pt = pe.asType();
                 if (isModel(pt)) {
-                    deep = true;
+                    deep = model = true;
                 }
                 final String dt = fqn(pt, ee);
                 if (dt.startsWith("java.util.List") && pt instanceof DeclaredType) {
                     final List<? extends TypeMirror> ptArgs = ((DeclaredType)pt).getTypeArguments();
                     if (ptArgs.size() == 1 && isModel(ptArgs.get(0))) {
-                        deep = true;
+                        deep = model = true;
                     }
                 }
                 String[] call = toGetSet(dn, dt, false);
-                w.write("    " + dt + " arg" + (++arg) + " = ");
-                w.write(call[0] + "();\n");
+                compute.write("    " + dt + " arg" + (++arg) + " = ");
+                compute.write(call[0] + "();\n");
 
                 Collection<String[]> depends = deps.get(dn);
                 if (depends == null) {
                     depends = new LinkedHashSet<String[]>();
                     deps.put(dn, depends);
                 }
-                depends.add(new String[] { sn, gs[0] });
+                depends.add(new String[] { sn, gs[0], String.valueOf(index) });
             }
-            w.write("    try {\n");
+            compute.write("    try {\n");
             if (tp != null) {
                 deep = tp.deep();
             }
             if (deep) {
-                w.write("      proto.acquireLock(\"" + sn + "\");\n");
+                compute.write("      proto.acquireLock(" + index + ");\n");
+            } else {
+                compute.write("      proto.acquireLock();\n");
+            }
+            // cache only values whose dependencies are all known: own
+            // properties passed as arguments or accesses tracked at runtime
+            final boolean cache = deep || (arg > 0 && !model);
+            if (cache) {
+                final String cast;
+                if (rt.getKind().isPrimitive()) {
+                    cast = tu.boxedClass((PrimitiveType) rt).getQualifiedName().toString();
+                } else {
+                    cast = tn + (array ? "<" + toCheck + ">" : "");
+                }
+                w.write("    Object cached = proto.cachedValue(" + index + ");\n");
+                w.write("    if (cached != org.netbeans.html.json.spi.Proto.NOT_CACHED) {\n");
+                w.write("      proto.accessProperty(" + index + ");\n");
+                if (array) {
+                    w.write("      @SuppressWarnings(\"unchecked\")\n");
+                    w.write("      " + cast + " value = (" + cast + ")cached;\n");
+                    w.write("      return value;\n");
+                } else {
+                    w.write("      return (" + cast + ")cached;\n");
+                }
+                w.write("    }\n");
+                compute.write("      return proto.cacheValue(" + index + ", ");
             } else {
-                w.write("      proto.acquireLock();\n");
+                compute.write("      return ");
             }
-            w.write("      return " + fqn(ee.getEnclosingElement().asType(), ee) + '.' + e.getSimpleName() + "(");
+            compute.write(fqn(ee.getEnclosingElement().asType(), ee) + '.' + e.getSimpleName() + "(");
             String sep = "";
             for (int i = 1; i <= arg; i++) {
-                w.write(sep);
-                w.write("arg" + i);
+                compute.write(sep);
+                compute.write("arg" + i);
                 sep = ", ";
             }
-            w.write(");\n");
+            compute.write(cache ? "));\n" : ");\n");
+            w.write(compute.toString());
             w.write("    } finally {\n");
-            w.write("      proto.releaseLock();\n");
+            if (cache) {
+                w.write("      proto.releaseLock(" + index + ");\n");
+            } else {
+                w.write("      proto.releaseLock();\n");
+            }
             w.write("    }\n");
             w.write("  }\n");
 
@@ -1779,6 +1841,62 @@ public final class ModelProcessor extends AbstractProcessor {
         w.write("    return sb.toString();\n");
         w.write("  }\n");
     }
+    private void writeStreaming(String className, Prprt[] props, Writer w) throws IOException {
+        w.write("    @Override protected " + className + " readFrom(net.java.html.BrwsrCtx c, org.netbeans.html.json.spi.JSONReader in) throws java.io.IOException {\n");
+        w.write("      " + className + " m = new " + className + "(c);\n");
+        w.write("      in.beginObject();\n");
+        w.write("      while (in.hasNext()) {\n");
+        w.write("        switch (in.nextName(JSON_NAMES)) {\n");
+        for (int i = 0; i < props.length; i++) {
+            Prprt p = props[i];
+            boolean isModel[] = { false };
+            boolean isEnum[] = { false };
+            boolean isPrimitive[] = { false };
+            String type = checkType(p, isModel, isEnum, isPrimitive);
+            w.write("          case " + i + ": ");
+            String field = "m.prop_" + p.name();
+            if (p.array()) {
+                String boxed = findBoxedType(type);
+                w.write("TYPE.readArray(c, " + (boxed == null ? type : boxed) + ".class, in, " + field + "); break;\n");
+            } else if ("java.lang.String".equals(type)) {
+                w.write(field + " = in.nextString(); break;\n");
+            } else if ("int".equals(type) || "long".equals(type) || "double".equals(type) || "boolean".equals(type)) {
+                w.write(field + " = in.next" + Character.toUpperCase(type.charAt(0)) + type.substring(1) + "(); break;\n");
+            } else if ("short".equals(type) || "byte".equals(type)) {
+                w.write(field + " = (" + type + ")in.nextInt(); break;\n");
+            } else if ("float".equals(type)) {
+                w.write(field + " = (float)in.nextDouble(); break;\n");
+            } else if ("char".equals(type)) {
+                w.write("{ Character ch = TYPE.readValue(c, Character.class, in); ");
+                w.write(field + " = ch == null ? 0 : ch; break; }\n");
+            } else {
+                w.write(field + " = TYPE.readValue(c, " + type + ".class, in); break;\n");
+            }
+        }
+        w.write("          default: in.skipValue();\n");
+        w.write("        }\n");
+        w.write("      }\n");
+        w.write("      in.endObject();\n");
+        w.write("      return m;\n");
+        w.write("    }\n");
+        w.write("    @Override protected void writeTo(" + className + " m, org.netbeans.html.json.spi.JSONWriter out) throws java.io.IOException {\n");
+        w.write("      out.beginObject();\n");
+        for (Prprt p : props) {
+            boolean isModel[] = { false };
+            boolean isEnum[] = { false };
+            boolean isPrimitive[] = { false };
+            checkType(p, isModel, isEnum, isPrimitive);
+            w.write("      out.name(\"" + p.name() + "\");\n");
+            if (isModel[0] && !p.array()) {
+                w.write("      out.value(m.prop_" + p.name() + " == m ? null : m.prop_" + p.name() + ");\n");
+            } else {
+                w.write("      out.value(m.prop_" + p.name() + ");\n");
+            }
+        }
+        w.write("      out.endObject();\n");
+        w.write("    }\n");
+    }
+
     private void writeClone(String className, Prprt[] props, Writer w) throws IOException {
         w.write("  public " + className + " clone() {\n");
         w.write("    return clone(proto.getContext());\n");
@@ -1931,6 +2049,15 @@ public final class ModelProcessor extends AbstractProcessor {
         }
     }
 
+    private static int indexOf(List<GetSet> props, String propName) {
+        for (int i = 0; i < props.size(); i++) {
+            if (propName.equals(props.get(i).name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     private static Prprt findPrprt(Prprt[] properties, String propName) {
         for (Prprt p : properties) {
             if (propName.equals(p.name())) {
@@ -1940,6 +2067,16 @@ public final class ModelProcessor extends AbstractProcessor {
         return null;
     }
 
+    private static String primitiveValue(String type, String value) {
+        if ("int".equals(type)) {
+            return "TYPE.intValue(" + value + ")";
+        }
+        if ("short".equals(type) || "byte".equals(type)) {
+            return "(" + type + ")TYPE.intValue(" + value + ")";
+        }
+        return "TYPE." + type + "Value(" + value + ")";
+    }
+
     private boolean isPrimitive(String type) {
         return
             "int".equals(type) ||
@@ -2072,6 +2209,10 @@ public final class ModelProcessor extends AbstractProcessor {
             return p.mutable();
         }
 
+        String key() {
+            return p.key();
+        }
+
         String typeName(ProcessingEnvironment env) {
             RuntimeException ex;
             try {
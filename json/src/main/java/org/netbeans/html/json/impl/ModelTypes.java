@@ -0,0 +1,156 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import org.netbeans.html.json.spi.Proto;
+
+/** Registry of {@link Proto.Type types} associated with classes generated
+ * by the {@link net.java.html.json.Model} annotation. Neither the classes
+ * nor their types are held strongly - the type is reachable from the static
+ * field of its class and the class can be unloaded together with its
+ * class loader.
+ *
+ * @author Jaroslav Tulach
+ */
+abstract class ModelTypes {
+    ModelTypes() {
+    }
+
+    /** Finds type registered for given class. Initializes the class
+     * if needed.
+     *
+     * @param clazz the class to find type for
+     * @return the type or <code>null</code> if the class isn't a model
+     */
+    abstract Proto.Type<?> find(Class<?> clazz);
+
+    /** Called from constructor of {@link Proto.Type} during static
+     * initialization of the generated class.
+     *
+     * @param clazz the generated class
+     * @param type its type
+     */
+    abstract void register(Class<?> clazz, Proto.Type<?> type);
+
+    static ModelTypes create() {
+        try {
+            return new Cached();
+        } catch (LinkageError err) {
+            // ClassValue isn't available (JDK6), use plain map
+            return new Weak();
+        }
+    }
+
+    /** Synchronized, weak registry. Used directly on systems without
+     * {@link ClassValue} and as a backing store for {@link Cached}.
+     */
+    private static class Weak extends ModelTypes {
+        private final Map<Class<?>,Reference<Proto.Type<?>>> types;
+
+        Weak() {
+            types = new WeakHashMap<Class<?>, Reference<Proto.Type<?>>>();
+        }
+
+        @Override
+        Proto.Type<?> find(Class<?> clazz) {
+            for (int i = 0; i < 2; i++) {
+                Proto.Type<?> from = registered(clazz);
+                if (from == null) {
+                    JSON.initClass(clazz);
+                } else {
+                    return from;
+                }
+            }
+            return null;
+        }
+
+        final Proto.Type<?> registered(Class<?> clazz) {
+            Reference<Proto.Type<?>> ref;
+            synchronized (types) {
+                ref = types.get(clazz);
+            }
+            return ref == null ? null : ref.get();
+        }
+
+        @Override
+        void register(Class<?> clazz, Proto.Type<?> type) {
+            synchronized (types) {
+                types.put(clazz, new WeakReference<Proto.Type<?>>(type));
+            }
+        }
+    }
+
+    /** Lock-free lookup for classes whose type has already been found.
+     * The class is always fully initialized before its type is returned,
+     * which guarantees the type is safely published to other threads.
+     */
+    private static final class Cached extends Weak {
+        private final ClassValue<Proto.Type<?>> cache;
+
+        Cached() {
+            cache = new ClassValue<Proto.Type<?>>() {
+                @Override
+                protected Proto.Type<?> computeValue(Class<?> type) {
+                    JSON.initClass(type);
+                    return registered(type);
+                }
+            };
+        }
+
+        @Override
+        Proto.Type<?> find(Class<?> clazz) {
+            return cache.get(clazz);
+        }
+
+        @Override
+        void register(Class<?> clazz, Proto.Type<?> type) {
+            super.register(clazz, type);
+            // drop null possibly computed during recursive initialization
+            cache.remove(clazz);
+        }
+    }
+}
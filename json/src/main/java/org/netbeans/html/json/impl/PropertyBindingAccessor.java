@@ -73,7 +73,12 @@ public abstract class PropertyBindingAccessor {
 
     protected abstract Bindings bindings(Proto proto, boolean initialize, Object copyFrom);
     protected abstract void notifyChange(Proto proto, int propIndex);
+    protected abstract void notifyMutated(Proto proto, int propIndex, Object oldValue, Object newValue);
+    protected abstract void invalidateValue(Proto proto, int propIndex);
+    protected abstract int propertyIndex(Proto.Type<?> type, String name);
+    protected abstract Object propertyValue(Proto.Type<?> type, Object model, int index);
     protected abstract Proto findProto(Proto.Type<?> type, Object object);
+    protected abstract void listenTo(Proto proto, JSONList.Listener listener, boolean add);
     protected abstract <Model> Model cloneTo(Proto.Type<Model> type, Model model, BrwsrCtx c);
     protected abstract Object read(Proto.Type<?> from, BrwsrCtx c, Object data);
 
@@ -85,6 +90,22 @@ public abstract class PropertyBindingAccessor {
         DEFAULT.notifyChange(proto, propIndex);
     }
 
+    static void notifyProtoMutated(Proto proto, int propIndex, Object oldValue, Object newValue) {
+        DEFAULT.notifyMutated(proto, propIndex, oldValue, newValue);
+    }
+
+    static void invalidate(Proto proto, int propIndex) {
+        DEFAULT.invalidateValue(proto, propIndex);
+    }
+
+    static int indexOf(Proto.Type<?> type, String name) {
+        return DEFAULT.propertyIndex(type, name);
+    }
+
+    static Object getValue(Proto.Type<?> type, Object model, int index) {
+        return DEFAULT.propertyValue(type, model, index);
+    }
+
     static <M> PropertyBinding create(
         Proto.Type<M> access, Bindings<?> bindings, String name, int index, M model , byte propertyType
     ) {
@@ -100,6 +121,13 @@ public abstract class PropertyBindingAccessor {
     static Proto protoFor(Proto.Type<?> type, Object object) {
         return DEFAULT.findProto(type, object);
     }
+    static void listen(Object model, JSONList.Listener listener, boolean add) {
+        Proto.Type<?> type = JSON.findType(model.getClass());
+        if (type == null) {
+            return;
+        }
+        DEFAULT.listenTo(DEFAULT.findProto(type, model), listener, add);
+    }
     static <Model> Model clone(Proto.Type<Model> type, Model model, BrwsrCtx c) {
         return DEFAULT.cloneTo(type, model, c);
     }
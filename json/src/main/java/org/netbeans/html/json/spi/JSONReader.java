@@ -0,0 +1,720 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.spi;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import net.java.html.json.Model;
+import org.netbeans.html.json.impl.JSON;
+
+/** Pulls tokens from a textual JSON stream. Used by classes generated
+ * for the {@link Model} annotation to read their properties directly
+ * from a stream, without creating any intermediate representation
+ * of the JSON data and without involving any {@link Transfer}.
+ * <p>
+ * The reader is lenient when asked for a value of different type than
+ * is present in the stream: it performs the same conversions as the
+ * rest of the system does, for example a JSON string is converted
+ * to a number when {@link #nextDouble()} is called. The syntax of the
+ * text is checked strictly, unless {@link #setLenient(boolean) lenient}
+ * parsing is requested.
+ *
+ * @author Jaroslav Tulach
+ * @since 2.0
+ */
+public final class JSONReader {
+    /** Type of the next token in the stream.
+     */
+    public static enum Token {
+        /** start of a JSON object <code>{</code> */
+        BEGIN_OBJECT,
+        /** end of a JSON object <code>}</code> */
+        END_OBJECT,
+        /** start of a JSON array <code>[</code> */
+        BEGIN_ARRAY,
+        /** end of a JSON array <code>]</code> */
+        END_ARRAY,
+        /** name of a property in a JSON object */
+        NAME,
+        /** a string value */
+        STRING,
+        /** a numeric value */
+        NUMBER,
+        /** <code>true</code> or <code>false</code> */
+        BOOLEAN,
+        /** the <code>null</code> value */
+        NULL,
+        /** end of the input */
+        END_DOCUMENT
+    }
+
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    private final Reader in;
+    private final char[] buf = new char[8192];
+    private int pos;
+    private int limit;
+    private long offset;
+
+    private int[] stack = new int[32];
+    private int depth;
+    private Token peeked;
+    private boolean peekedBoolean;
+    private int quote;
+    private boolean lenient;
+
+    private final StringBuilder text = new StringBuilder();
+    private boolean numberIsLong;
+    private long numberLong;
+    private double numberDouble;
+    private int nameHint;
+
+    /** Reads JSON from a character stream.
+     *
+     * @param in the stream to read from
+     */
+    public JSONReader(Reader in) {
+        this.in = in;
+        this.stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    /** Reads JSON from a byte stream encoded in UTF-8.
+     *
+     * @param in the stream to read from
+     */
+    public JSONReader(InputStream in) {
+        this(new InputStreamReader(in, Charset.forName("UTF-8")));
+    }
+
+    /** Controls strictness of the parser. By default only valid JSON
+     * is accepted. A lenient reader also accepts what JavaScript
+     * itself does: strings and names of properties enclosed in apostrophes,
+     * numbers with leading zeros and unescaped control characters
+     * in strings.
+     *
+     * @param lenient <code>true</code> to accept the extended syntax
+     */
+    public void setLenient(boolean lenient) {
+        this.lenient = lenient;
+    }
+
+    /** Finds out the type of the next token without consuming it.
+     *
+     * @return the type of next token
+     * @throws IOException if the stream cannot be read or isn't valid JSON
+     */
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int c;
+        switch (stack[depth - 1]) {
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                pos--;
+                break;
+            case NONEMPTY_ARRAY:
+                c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                if (c != ',') {
+                    throw syntaxError("Expecting ',' or ']'", c);
+                }
+                break;
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT:
+                c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = Token.END_OBJECT;
+                }
+                if (stack[depth - 1] == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("Expecting ',' or '}'", c);
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"' && (c != '\'' || !lenient)) {
+                    throw syntaxError("Expecting name of a property", c);
+                }
+                quote = c;
+                stack[depth - 1] = DANGLING_NAME;
+                return peeked = Token.NAME;
+            case DANGLING_NAME:
+                c = nextNonWhitespace();
+                if (c != ':') {
+                    throw syntaxError("Expecting ':'", c);
+                }
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                break;
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            default:
+                c = read();
+                while (c != -1 && isWhitespace(c)) {
+                    c = read();
+                }
+                if (c == -1) {
+                    return peeked = Token.END_DOCUMENT;
+                }
+                throw syntaxError("Expecting end of input", c);
+        }
+        c = nextNonWhitespace();
+        switch (c) {
+            case '{': return peeked = Token.BEGIN_OBJECT;
+            case '[': return peeked = Token.BEGIN_ARRAY;
+            case '\'':
+                if (!lenient) {
+                    throw syntaxError("Unexpected character", c);
+                }
+                // fallthrough
+            case '"':
+                quote = c;
+                return peeked = Token.STRING;
+            case 't': literal("rue"); peekedBoolean = true; return peeked = Token.BOOLEAN;
+            case 'f': literal("alse"); peekedBoolean = false; return peeked = Token.BOOLEAN;
+            case 'n': literal("ull"); return peeked = Token.NULL;
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    pos--;
+                    return peeked = Token.NUMBER;
+                }
+                throw syntaxError("Unexpected character", c);
+        }
+    }
+
+    /** Consumes start of a JSON object.
+     * @throws IOException if the next token isn't start of an object
+     */
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    /** Consumes end of a JSON object.
+     * @throws IOException if the next token isn't end of an object
+     */
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    /** Consumes start of a JSON array.
+     * @throws IOException if the next token isn't start of an array
+     */
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    /** Consumes end of a JSON array.
+     * @throws IOException if the next token isn't end of an array
+     */
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    /** Checks whether the current object or array has more elements.
+     *
+     * @return <code>true</code> if there is another property or element
+     * @throws IOException if the stream cannot be read
+     */
+    public boolean hasNext() throws IOException {
+        Token t = peek();
+        return t != Token.END_OBJECT && t != Token.END_ARRAY && t != Token.END_DOCUMENT;
+    }
+
+    /** Reads name of the next property.
+     *
+     * @return the name
+     * @throws IOException if the next token isn't a name
+     */
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        readString();
+        return text.toString();
+    }
+
+    /** Reads name of the next property and finds it among known names.
+     * The name isn't converted to a string. The names are expected
+     * in the order they appear in the <code>names</code> array, however
+     * any order is accepted.
+     *
+     * @param names the known names
+     * @return index into the <code>names</code> array or <code>-1</code>,
+     *   if the name isn't known and its value should be
+     *   {@link #skipValue() skipped}
+     * @throws IOException if the next token isn't a name
+     */
+    public int nextName(String[] names) throws IOException {
+        expect(Token.NAME);
+        readString();
+        int len = text.length();
+        for (int i = 0; i < names.length; i++) {
+            int at = (nameHint + i) % names.length;
+            String n = names[at];
+            if (n.length() != len) {
+                continue;
+            }
+            int j = 0;
+            while (j < len && n.charAt(j) == text.charAt(j)) {
+                j++;
+            }
+            if (j == len) {
+                nameHint = at + 1;
+                return at;
+            }
+        }
+        return -1;
+    }
+
+    /** Reads a string value. Numbers and booleans are converted to strings.
+     *
+     * @return the value or <code>null</code>
+     * @throws IOException if the next value isn't a primitive one
+     */
+    public String nextString() throws IOException {
+        if (peek() == Token.STRING) {
+            peeked = null;
+            readString();
+            return text.toString();
+        }
+        return JSON.stringValue(nextPrimitive());
+    }
+
+    /** Reads a numeric value.
+     *
+     * @return the value or <code>0</code> if the value is <code>null</code>
+     * @throws IOException if the next value isn't a primitive one
+     */
+    public double nextDouble() throws IOException {
+        if (peek() == Token.NUMBER) {
+            peeked = null;
+            readNumber();
+            return numberIsLong ? numberLong : numberDouble;
+        }
+        Object v = nextPrimitive();
+        return v == null ? 0 : JSON.numberValue(v).doubleValue();
+    }
+
+    /** Reads a numeric value.
+     *
+     * @return the value or <code>0</code> if the value is <code>null</code>
+     * @throws IOException if the next value isn't a primitive one
+     */
+    public long nextLong() throws IOException {
+        if (peek() == Token.NUMBER) {
+            peeked = null;
+            readNumber();
+            return numberIsLong ? numberLong : (long) numberDouble;
+        }
+        Object v = nextPrimitive();
+        return v == null ? 0 : JSON.numberValue(v).longValue();
+    }
+
+    /** Reads a numeric value. Values out of the <code>int</code> range
+     * are converted to {@link Integer#MIN_VALUE} or {@link Integer#MAX_VALUE}.
+     *
+     * @return the value or <code>0</code> if the value is <code>null</code>
+     * @throws IOException if the next value isn't a primitive one
+     */
+    public int nextInt() throws IOException {
+        if (peek() == Token.NUMBER) {
+            peeked = null;
+            readNumber();
+            if (numberIsLong) {
+                // saturate like the conversion of a double does
+                if (numberLong > Integer.MAX_VALUE) {
+                    return Integer.MAX_VALUE;
+                }
+                if (numberLong < Integer.MIN_VALUE) {
+                    return Integer.MIN_VALUE;
+                }
+                return (int) numberLong;
+            }
+            return (int) numberDouble;
+        }
+        Object v = nextPrimitive();
+        return v == null ? 0 : (int) JSON.numberValue(v).doubleValue();
+    }
+
+    /** Reads a boolean value.
+     *
+     * @return the value or <code>false</code> if the value is <code>null</code>
+     * @throws IOException if the next value isn't a primitive one
+     */
+    public boolean nextBoolean() throws IOException {
+        if (peek() == Token.BOOLEAN) {
+            peeked = null;
+            return peekedBoolean;
+        }
+        return JSON.boolValue(nextPrimitive());
+    }
+
+    /** Consumes the <code>null</code> value.
+     * @throws IOException if the next token isn't <code>null</code>
+     */
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+    }
+
+    /** Reads any value. Strings, booleans and numbers are returned
+     * as {@link String}, {@link Boolean} and {@link Number}, arrays as
+     * <code>Object[]</code> and objects as {@link Map}.
+     *
+     * @return the value
+     * @throws IOException if the stream cannot be read or isn't valid JSON
+     */
+    public Object nextValue() throws IOException {
+        switch (peek()) {
+            case BEGIN_ARRAY: {
+                List<Object> arr = new ArrayList<Object>();
+                beginArray();
+                while (hasNext()) {
+                    arr.add(nextValue());
+                }
+                endArray();
+                return arr.toArray();
+            }
+            case BEGIN_OBJECT: {
+                Map<String,Object> obj = new LinkedHashMap<String, Object>();
+                beginObject();
+                while (hasNext()) {
+                    String n = nextName();
+                    obj.put(n, nextValue());
+                }
+                endObject();
+                return obj;
+            }
+            default:
+                return nextPrimitive();
+        }
+    }
+
+    /** Skips the next value including all its nested values.
+     * @throws IOException if the stream cannot be read or isn't valid JSON
+     */
+    public void skipValue() throws IOException {
+        int level = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_ARRAY: beginArray(); level++; break;
+                case BEGIN_OBJECT: beginObject(); level++; break;
+                case END_ARRAY: endArray(); level--; break;
+                case END_OBJECT: endObject(); level--; break;
+                case NAME: nextName(); break;
+                default: nextPrimitive();
+            }
+        } while (level > 0);
+    }
+
+    private Object nextPrimitive() throws IOException {
+        Token t = peek();
+        peeked = null;
+        switch (t) {
+            case STRING:
+                readString();
+                return text.toString();
+            case NUMBER:
+                readNumber();
+                if (numberIsLong) {
+                    if (numberLong >= Integer.MIN_VALUE && numberLong <= Integer.MAX_VALUE) {
+                        return (int) numberLong;
+                    }
+                    return numberLong;
+                }
+                return numberDouble;
+            case BOOLEAN:
+                return peekedBoolean;
+            case NULL:
+                return null;
+            default:
+                peeked = t;
+                throw new IOException("Expecting a value, but found " + t + " at " + position());
+        }
+    }
+
+    private void expect(Token t) throws IOException {
+        Token real = peek();
+        if (real != t) {
+            throw new IOException("Expecting " + t + ", but found " + real + " at " + position());
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) {
+            int[] arr = new int[depth * 2];
+            System.arraycopy(stack, 0, arr, 0, depth);
+            stack = arr;
+        }
+        stack[depth++] = scope;
+    }
+
+    private void readString() throws IOException {
+        text.setLength(0);
+        for (;;) {
+            int start = pos;
+            while (pos < limit) {
+                char ch = buf[pos];
+                if (ch == quote) {
+                    text.append(buf, start, pos - start);
+                    pos++;
+                    return;
+                }
+                if (ch < ' ' && !lenient) {
+                    throw syntaxError("Unescaped control character", ch);
+                }
+                if (ch == '\\') {
+                    text.append(buf, start, pos - start);
+                    pos++;
+                    text.append(readEscape());
+                    start = pos;
+                    continue;
+                }
+                pos++;
+            }
+            text.append(buf, start, pos - start);
+            if (!fill()) {
+                throw new EOFException("Unterminated string at " + position());
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int c = read();
+        switch (c) {
+            case 'b': return '\b';
+            case 'f': return '\f';
+            case 'n': return '\n';
+            case 'r': return '\r';
+            case 't': return '\t';
+            case 'u':
+                int value = 0;
+                for (int i = 0; i < 4; i++) {
+                    int h = Character.digit(read(), 16);
+                    if (h == -1) {
+                        throw syntaxError("Invalid unicode escape", c);
+                    }
+                    value = value * 16 + h;
+                }
+                return (char) value;
+            case '\'':
+                if (!lenient) {
+                    throw syntaxError("Invalid escape", c);
+                }
+                return (char) c;
+            case '"':
+            case '\\':
+            case '/':
+                return (char) c;
+            default:
+                throw syntaxError("Invalid escape", c);
+        }
+    }
+
+    private void readNumber() throws IOException {
+        text.setLength(0);
+        boolean integral = true;
+        for (;;) {
+            if (pos == limit && !fill()) {
+                break;
+            }
+            char ch = buf[pos];
+            if (ch == '.' || ch == 'e' || ch == 'E') {
+                integral = false;
+            } else if (!(ch >= '0' && ch <= '9') && ch != '-' && ch != '+') {
+                break;
+            }
+            text.append(ch);
+            pos++;
+        }
+        int len = text.length();
+        if (!lenient && !isJSONNumber(text)) {
+            throw new IOException("Invalid number " + text + " at " + position());
+        }
+        if (integral && len > 0 && len < 19) {
+            int i = text.charAt(0) == '-' ? 1 : 0;
+            if (i < len) {
+                long v = 0;
+                for (; i < len; i++) {
+                    char ch = text.charAt(i);
+                    if (ch < '0' || ch > '9') {
+                        break;
+                    }
+                    v = v * 10 + (ch - '0');
+                }
+                if (i == len) {
+                    numberIsLong = true;
+                    numberLong = text.charAt(0) == '-' ? -v : v;
+                    return;
+                }
+            }
+        }
+        try {
+            numberIsLong = false;
+            numberDouble = Double.parseDouble(text.toString());
+        } catch (NumberFormatException ex) {
+            throw new IOException("Invalid number " + text + " at " + position());
+        }
+    }
+
+    /** Checks the number matches
+     * <code>-?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?</code>.
+     */
+    private static boolean isJSONNumber(CharSequence s) {
+        int len = s.length();
+        int i = 0;
+        if (i < len && s.charAt(i) == '-') {
+            i++;
+        }
+        if (i < len && s.charAt(i) == '0') {
+            i++;
+        } else {
+            int at = i;
+            i = digits(s, i);
+            if (i == at) {
+                return false;
+            }
+        }
+        if (i < len && s.charAt(i) == '.') {
+            int at = ++i;
+            i = digits(s, i);
+            if (i == at) {
+                return false;
+            }
+        }
+        if (i < len && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < len && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+                i++;
+            }
+            int at = i;
+            i = digits(s, i);
+            if (i == at) {
+                return false;
+            }
+        }
+        return i == len;
+    }
+
+    private static int digits(CharSequence s, int i) {
+        while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private void literal(String rest) throws IOException {
+        for (int i = 0; i < rest.length(); i++) {
+            int c = read();
+            if (c != rest.charAt(i)) {
+                throw syntaxError("Unexpected literal", c);
+            }
+        }
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        for (;;) {
+            int c = read();
+            if (c == -1) {
+                throw new EOFException("Unexpected end of input at " + position());
+            }
+            if (!isWhitespace(c)) {
+                return c;
+            }
+        }
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+
+    private int read() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buf[pos++];
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        pos = 0;
+        limit = 0;
+        int len = in.read(buf, 0, buf.length);
+        if (len <= 0) {
+            return false;
+        }
+        limit = len;
+        return true;
+    }
+
+    private long position() {
+        return offset + pos;
+    }
+
+    private IOException syntaxError(String msg, int c) {
+        String found = c == -1 ? "end of input" : "'" + (char) c + "'";
+        return new IOException(msg + ", but found " + found + " at " + position());
+    }
+}
@@ -0,0 +1,475 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.spi;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import net.java.html.json.Model;
+import org.netbeans.html.json.impl.JSON;
+
+/** Writes JSON text to a stream. Used by classes generated
+ * for the {@link Model} annotation to write their properties directly
+ * from their fields, without creating intermediate strings.
+ * <p>
+ * Strings are escaped according to the JSON specification, including
+ * all the control characters. Unpaired surrogates are written as
+ * <code>&#92;uXXXX</code> escapes. Numbers that have no JSON representation
+ * (<code>NaN</code> and infinities) are written as <code>null</code>,
+ * the same way <code>JSON.stringify</code> does.
+ *
+ * @author Jaroslav Tulach
+ * @since 2.0
+ */
+public final class JSONWriter {
+    private final Writer out;
+    private final OutputStream os;
+    private final ByteBuffer bb;
+    private final char[] buf = new char[4096];
+    private int pos;
+    private byte[] bytes;
+    private boolean[] comma = new boolean[32];
+    private int depth;
+
+    private JSONWriter(Writer out, OutputStream os, ByteBuffer bb) {
+        this.out = out;
+        this.os = os;
+        this.bb = bb;
+    }
+
+    /** Writes JSON to a character stream. Call {@link #flush()} when
+     * done writing.
+     *
+     * @param out the stream to write to
+     */
+    public JSONWriter(Writer out) {
+        this(out, null, null);
+    }
+
+    /** Writes JSON to a byte stream encoded in UTF-8. Call {@link #flush()} when
+     * done writing.
+     *
+     * @param out the stream to write to
+     */
+    public JSONWriter(OutputStream out) {
+        this(null, out, null);
+    }
+
+    /** Writes JSON encoded in UTF-8 into a buffer. Call {@link #flush()} when
+     * done writing. If there is not enough space left in the buffer,
+     * a {@link java.nio.BufferOverflowException} is thrown.
+     *
+     * @param out the buffer to write to
+     */
+    public JSONWriter(ByteBuffer out) {
+        this(null, null, out);
+    }
+
+    /** Starts a JSON object.
+     * @throws IOException if the stream cannot be written
+     */
+    public void beginObject() throws IOException {
+        separator();
+        write('{');
+        push();
+    }
+
+    /** Ends a JSON object.
+     * @throws IOException if the stream cannot be written
+     */
+    public void endObject() throws IOException {
+        depth--;
+        write('}');
+    }
+
+    /** Starts a JSON array.
+     * @throws IOException if the stream cannot be written
+     */
+    public void beginArray() throws IOException {
+        separator();
+        write('[');
+        push();
+    }
+
+    /** Ends a JSON array.
+     * @throws IOException if the stream cannot be written
+     */
+    public void endArray() throws IOException {
+        depth--;
+        write(']');
+    }
+
+    /** Writes name of a property. Should be followed by a value.
+     *
+     * @param name the name of the property
+     * @throws IOException if the stream cannot be written
+     */
+    public void name(String name) throws IOException {
+        separator();
+        string(name);
+        write(':');
+        comma[depth] = false;
+    }
+
+    /** Writes a string value.
+     *
+     * @param value the value or <code>null</code>
+     * @throws IOException if the stream cannot be written
+     */
+    public void value(String value) throws IOException {
+        separator();
+        if (value == null) {
+            write("null");
+        } else {
+            string(value);
+        }
+    }
+
+    /** Writes a character as a string value.
+     *
+     * @param value the value
+     * @throws IOException if the stream cannot be written
+     */
+    public void value(char value) throws IOException {
+        separator();
+        write('"');
+        escape(value);
+        write('"');
+    }
+
+    /** Writes a numeric value.
+     *
+     * @param value the value
+     * @throws IOException if the stream cannot be written
+     */
+    public void value(long value) throws IOException {
+        separator();
+        digits(value);
+    }
+
+    /** Writes a numeric value.
+     *
+     * @param value the value
+     * @throws IOException if the stream cannot be written
+     */
+    public void value(float value) throws IOException {
+        separator();
+        if (Float.isNaN(value) || Float.isInfinite(value)) {
+            write("null");
+            return;
+        }
+        write(Float.toString(value));
+    }
+
+    /** Writes a numeric value.
+     *
+     * @param value the value
+     * @throws IOException if the stream cannot be written
+     */
+    public void value(double value) throws IOException {
+        separator();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            write("null");
+        } else if (value == (long) value && Math.abs(value) < 1e7 && (value != 0 || 1 / value > 0)) {
+            // the same as Double.toString, but without allocating a string
+            digits((long) value);
+            write('.');
+            write('0');
+        } else {
+            write(Double.toString(value));
+        }
+    }
+
+    /** Writes a boolean value.
+     *
+     * @param value the value
+     * @throws IOException if the stream cannot be written
+     */
+    public void value(boolean value) throws IOException {
+        separator();
+        write(value ? "true" : "false");
+    }
+
+    /** Writes any value. {@link Model Models} are written as JSON objects,
+     * collections and arrays as JSON arrays, enums and characters as
+     * strings.
+     *
+     * @param value the value or <code>null</code>
+     * @throws IOException if the stream cannot be written
+     */
+    public void value(Object value) throws IOException {
+        if (value == null) {
+            separator();
+            write("null");
+        } else if (value instanceof String) {
+            value((String) value);
+        } else if (value instanceof Integer || value instanceof Long
+            || value instanceof Short || value instanceof Byte) {
+            value(((Number) value).longValue());
+        } else if (value instanceof Double) {
+            value(((Double) value).doubleValue());
+        } else if (value instanceof Float) {
+            value(((Float) value).floatValue());
+        } else if (value instanceof Boolean) {
+            value(((Boolean) value).booleanValue());
+        } else if (value instanceof Character) {
+            value(((Character) value).charValue());
+        } else if (value instanceof Enum) {
+            value(value.toString());
+        } else if (value instanceof Collection) {
+            beginArray();
+            Collection<?> c = (Collection<?>) value;
+            if (c instanceof List && c instanceof RandomAccess) {
+                List<?> l = (List<?>) c;
+                for (int i = 0; i < l.size(); i++) {
+                    value(l.get(i));
+                }
+            } else {
+                for (Object e : c) {
+                    value(e);
+                }
+            }
+            endArray();
+        } else if (value instanceof Object[]) {
+            beginArray();
+            for (Object e : (Object[]) value) {
+                value(e);
+            }
+            endArray();
+        } else {
+            Proto.Type<?> type = JSON.findType(value.getClass());
+            if (type != null) {
+                writeModel(type, value);
+            } else {
+                separator();
+                write(value.toString());
+            }
+        }
+    }
+
+    /** Writes all buffered data into the underlying stream.
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    public void flush() throws IOException {
+        flush(true);
+    }
+
+    private void flush(boolean all) throws IOException {
+        if (out != null) {
+            out.write(buf, 0, pos);
+            pos = 0;
+            return;
+        }
+        int len = pos;
+        if (!all && len > 0 && Character.isHighSurrogate(buf[len - 1])) {
+            // keep for the next flush to see the whole surrogate pair
+            len--;
+        }
+        if (bytes == null) {
+            bytes = new byte[buf.length * 3];
+        }
+        int at = 0;
+        for (int i = 0; i < len; i++) {
+            int ch = buf[i];
+            if (ch < 0x80) {
+                bytes[at++] = (byte) ch;
+            } else if (ch < 0x800) {
+                bytes[at++] = (byte) (0xc0 | (ch >> 6));
+                bytes[at++] = (byte) (0x80 | (ch & 0x3f));
+            } else if (ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE) {
+                if (Character.isHighSurrogate((char) ch) && i + 1 < len && Character.isLowSurrogate(buf[i + 1])) {
+                    int cp = Character.toCodePoint((char) ch, buf[++i]);
+                    bytes[at++] = (byte) (0xf0 | (cp >> 18));
+                    bytes[at++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    bytes[at++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    bytes[at++] = (byte) (0x80 | (cp & 0x3f));
+                } else {
+                    bytes[at++] = '?';
+                }
+            } else {
+                bytes[at++] = (byte) (0xe0 | (ch >> 12));
+                bytes[at++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+                bytes[at++] = (byte) (0x80 | (ch & 0x3f));
+            }
+        }
+        if (os != null) {
+            os.write(bytes, 0, at);
+        } else {
+            bb.put(bytes, 0, at);
+        }
+        if (len < pos) {
+            buf[0] = buf[len];
+        }
+        pos -= len;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <M> void writeModel(Proto.Type<M> type, Object model) throws IOException {
+        type.writeTo((M) model, this);
+    }
+
+    final void raw(String json) throws IOException {
+        separator();
+        write(json);
+    }
+
+    private void digits(long value) throws IOException {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                write(Long.toString(value));
+                return;
+            }
+            write('-');
+            value = -value;
+        }
+        if (buf.length - pos < 20) {
+            flush(false);
+        }
+        int len = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            len++;
+        }
+        for (int i = pos + len - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        pos += len;
+    }
+
+    private void push() {
+        if (++depth == comma.length) {
+            boolean[] arr = new boolean[depth * 2];
+            System.arraycopy(comma, 0, arr, 0, depth);
+            comma = arr;
+        }
+        comma[depth] = false;
+    }
+
+    private void separator() throws IOException {
+        if (comma[depth]) {
+            write(',');
+        } else {
+            comma[depth] = true;
+        }
+    }
+
+    private void string(String s) throws IOException {
+        write('"');
+        int len = s.length();
+        int start = 0;
+        for (int i = 0; i < len; i++) {
+            char ch = s.charAt(i);
+            if (ch < 0x20 || ch == '"' || ch == '\\') {
+                write(s, start, i);
+                escape(ch);
+                start = i + 1;
+            } else if (ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE) {
+                if (Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    i++;
+                } else {
+                    write(s, start, i);
+                    escape(ch);
+                    start = i + 1;
+                }
+            }
+        }
+        write(s, start, len);
+        write('"');
+    }
+
+    private void escape(char ch) throws IOException {
+        switch (ch) {
+            case '"': write("\\\""); break;
+            case '\\': write("\\\\"); break;
+            case '\n': write("\\n"); break;
+            case '\r': write("\\r"); break;
+            case '\t': write("\\t"); break;
+            case '\b': write("\\b"); break;
+            case '\f': write("\\f"); break;
+            default:
+                if (ch < 0x20) {
+                    write("\\u00");
+                    write(HEX[ch >> 4]);
+                    write(HEX[ch & 0xf]);
+                } else if (ch >= Character.MIN_SURROGATE && ch <= Character.MAX_SURROGATE) {
+                    // unpaired surrogate cannot be encoded in UTF-8
+                    write("\\u");
+                    write(HEX[ch >> 12]);
+                    write(HEX[(ch >> 8) & 0xf]);
+                    write(HEX[(ch >> 4) & 0xf]);
+                    write(HEX[ch & 0xf]);
+                } else {
+                    write(ch);
+                }
+        }
+    }
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private void write(char ch) throws IOException {
+        if (pos == buf.length) {
+            flush(false);
+        }
+        buf[pos++] = ch;
+    }
+
+    private void write(String s) throws IOException {
+        write(s, 0, s.length());
+    }
+
+    private void write(String s, int from, int to) throws IOException {
+        while (from < to) {
+            if (pos == buf.length) {
+                flush(false);
+            }
+            int len = Math.min(to - from, buf.length - pos);
+            s.getChars(from, from + len, buf, pos);
+            pos += len;
+            from += len;
+        }
+    }
+}
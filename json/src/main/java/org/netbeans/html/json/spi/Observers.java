@@ -45,81 +45,119 @@ package org.netbeans.html.json.spi;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.netbeans.html.json.impl.JSONList;
 
-/**
+/** Tracks dependencies of {@link net.java.html.json.ComputedProperty derived
+ * properties}. Each thread keeps its own stack of properties being
+ * computed. When no property is computed at all, accessing and
+ * modifying properties doesn't touch any shared state. Each proto object
+ * guards its own list of observers. Properties are identified by their
+ * indexes and each observer remembers the accessed properties in a bit set.
  *
  * @author Jaroslav Tulach
  */
 final class Observers {
-    private static final LinkedList<Watcher> GLOBAL = new LinkedList<Watcher>();
-    private final List<Watcher> watchers = new ArrayList<Watcher>();
+    private static final AtomicInteger COMPUTING = new AtomicInteger();
+    private static final ThreadLocal<List<Watcher>> STACK = new ThreadLocal<List<Watcher>>() {
+        @Override
+        protected List<Watcher> initialValue() {
+            return new ArrayList<Watcher>();
+        }
+    };
+    private final Watcher[] watchers;
     private final List<Ref> observers = new ArrayList<Ref>();
+    private final List<JSONList.Listener> listeners = new ArrayList<JSONList.Listener>();
 
-    Observers() {
-        assert Thread.holdsLock(GLOBAL);
+    Observers(int properties) {
+        this.watchers = new Watcher[properties];
     }
-    
-    static void beginComputing(Proto p, String name) {
-        synchronized (GLOBAL) {
-            verifyUnlocked(p);
-            final Watcher nw = new Watcher(p, name);
-            GLOBAL.push(nw);
+
+    private static List<Watcher> computing() {
+        if (COMPUTING.get() == 0) {
+            return null;
         }
+        List<Watcher> stack = STACK.get();
+        return stack.isEmpty() ? null : stack;
     }
-    
+
+    static void beginComputing(Proto p, int index) {
+        verifyUnlocked(p);
+        STACK.get().add(new Watcher(p, index));
+        COMPUTING.incrementAndGet();
+    }
+
     static void verifyUnlocked(Proto p) {
-        synchronized (GLOBAL) {
-            for (Watcher w : GLOBAL) {
-                if (w.proto == p) {
-                    if (w.owner == Thread.currentThread()) {
-                        throw new IllegalStateException("Re-entrant attempt to access " + p);
-                    }
-                }
+        List<Watcher> stack = computing();
+        if (stack == null) {
+            return;
+        }
+        for (Watcher w : stack) {
+            if (w.proto == p) {
+                throw new IllegalStateException("Re-entrant attempt to access " + p);
             }
-        }        
+        }
     }
 
-    static void accessingValue(Proto p, String propName) {
-        synchronized (GLOBAL) {
-            verifyUnlocked(p);
-            for (Watcher w : GLOBAL) {
-                Observers mine = p.observers(true);
-                mine.add(w, new Ref(w, propName));
-            }
+    static void accessingValue(Proto p, int index) {
+        List<Watcher> stack = computing();
+        if (stack == null) {
+            return;
+        }
+        verifyUnlocked(p);
+        if (index < 0) {
+            return;
+        }
+        Observers mine = p.observers(true);
+        for (Watcher w : stack) {
+            mine.add(w, index);
         }
     }
-    
+
     static void finishComputing(Proto p) {
-        synchronized (GLOBAL) {
-            boolean found = false;
-            Iterator<Watcher> it = GLOBAL.iterator();
-            while (it.hasNext()) {
-                Watcher w = it.next();
-                if (w.proto == p && w.owner == Thread.currentThread()) {
-                    if (w.prop != null) {
-                        Observers mine = p.observers(true);
-                        mine.add(w);
-                    }
-                    found = true;
-                    it.remove();
+        List<Watcher> stack = STACK.get();
+        boolean found = false;
+        for (int i = stack.size() - 1; i >= 0; i--) {
+            Watcher w = stack.get(i);
+            if (w.proto == p) {
+                if (w.prop >= 0) {
+                    Observers mine = p.observers(true);
+                    mine.add(w);
                 }
-            }
-            if (!found) {
-                throw new IllegalStateException("Cannot find " + p + " in " + GLOBAL);
+                found = true;
+                stack.remove(i);
+                COMPUTING.decrementAndGet();
             }
         }
+        if (!found) {
+            throw new IllegalStateException("Cannot find " + p + " in " + stack);
+        }
     }
-    
+
     private static final class Ref extends WeakReference<Watcher> {
-        private final String prop;
-        
-        public Ref(Watcher ref, String prop) {
+        private long[] props;
+
+        public Ref(Watcher ref) {
             super(ref);
-            this.prop = prop;
+            this.props = new long[1];
+        }
+
+        final void add(int index) {
+            int word = index >> 6;
+            if (word >= props.length) {
+                long[] arr = new long[word + 1];
+                System.arraycopy(props, 0, arr, 0, props.length);
+                props = arr;
+            }
+            props[word] |= 1L << index;
+        }
+
+        final boolean contains(int index) {
+            int word = index >> 6;
+            return word < props.length && (props[word] & (1L << index)) != 0;
         }
-        
+
         final Watcher watcher() {
             Watcher w = get();
             if (w == null) {
@@ -135,96 +173,138 @@ final class Observers {
             return null;
         }
     }
-    
-    private Watcher find(String prop) {
-        if (prop == null) {
+
+    private synchronized Watcher find(int prop) {
+        if (prop < 0) {
             return null;
         }
-        for (Watcher w : watchers) {
-            if (prop.equals(w.prop)) {
-                return w;
-            }
-        }
-        return null;
+        return watchers[prop];
     }
 
-        final void add(Watcher w) {
-        for (int i = 0; i < watchers.size(); i++) {
-            Watcher ith = watchers.get(i);
-            if (w.prop == null) {
-                if (ith.prop == null) {
-                    watchers.set(i, w);
-                    return;
+    final synchronized void add(Watcher w) {
+        watchers[w.prop] = w;
+    }
+
+    static final void valueHasMutated(Proto p, int index) {
+        Observers mine = p.observers(false);
+        if (mine == null) {
+            return;
+        }
+        List<Ref> candidates = mine.candidates(index);
+        if (candidates != null) {
+            // verified outside of our lock, watcher() locks other observers
+            for (Ref ref : candidates) {
+                Watcher w = ref.watcher();
+                if (w != null) {
+                    w.proto.valueHasMutated(w.prop, null, null);
                 }
-            } else if (w.prop.equals(ith.prop)) {
-                watchers.set(i, w);
-                return;
             }
         }
-        watchers.add(w);
     }
 
-    static final void valueHasMutated(Proto p, String propName) {
-        List<Watcher> mutated = new LinkedList<Watcher>();
-        synchronized (GLOBAL) {
-            Observers mine = p.observers(false);
-            if (mine == null) {
+    /** Notifies {@link #listen(org.netbeans.html.json.spi.Proto, org.netbeans.html.json.impl.JSONList.Listener, boolean) listeners}
+     * about a change of the model. Unlike {@link #valueHasMutated(org.netbeans.html.json.spi.Proto, int)}
+     * it is called synchronously, so indexes of lists are up to date
+     * as soon as the setter returns.
+     */
+    static final void mutated(Proto p) {
+        Observers mine = p.observers(false);
+        if (mine == null) {
+            return;
+        }
+        JSONList.Listener[] arr;
+        synchronized (mine) {
+            if (mine.listeners.isEmpty()) {
                 return;
             }
-            Iterator<Ref> it = mine.observers.iterator();
-            while (it.hasNext()) {
-                Ref ref = it.next();
-                if (ref.get() == null) {
-                    it.remove();
-                    continue;
-                }
-                if (ref.prop.equals(propName)) {
-                    Watcher w = ref.watcher();
-                    if (w != null) {
-                        mutated.add(w);
-                    }
+            arr = mine.listeners.toArray(new JSONList.Listener[mine.listeners.size()]);
+        }
+        for (JSONList.Listener l : arr) {
+            l.mutated(p.model());
+        }
+    }
+
+    /** Discards cached values of properties computed from the
+     * given one. Unlike {@link #valueHasMutated(org.netbeans.html.json.spi.Proto, int)}
+     * it is called synchronously and doesn't notify anyone.
+     */
+    static final void invalidate(Proto p, int index) {
+        Observers mine = p.observers(false);
+        if (mine == null) {
+            return;
+        }
+        List<Ref> candidates = mine.candidates(index);
+        if (candidates != null) {
+            for (Ref ref : candidates) {
+                Watcher w = ref.watcher();
+                if (w != null) {
+                    w.proto.invalidate(w.prop);
                 }
             }
         }
-        for (Watcher w : mutated) {
-            w.proto.valueHasMutated(w.prop);
+    }
+
+    private synchronized List<Ref> candidates(int index) {
+        List<Ref> candidates = null;
+        Iterator<Ref> it = observers.iterator();
+        while (it.hasNext()) {
+            Ref ref = it.next();
+            if (ref.get() == null) {
+                it.remove();
+                continue;
+            }
+            if (ref.contains(index)) {
+                if (candidates == null) {
+                    candidates = new ArrayList<Ref>();
+                }
+                candidates.add(ref);
+            }
         }
+        return candidates;
     }
 
-    void add(Watcher w, Ref r) {
-        Thread.holdsLock(GLOBAL);
-        if (w == null) {
+    static void listen(Proto p, JSONList.Listener l, boolean add) {
+        Observers mine = p.observers(add);
+        if (mine == null) {
             return;
         }
+        synchronized (mine) {
+            if (add) {
+                mine.listeners.add(l);
+            } else {
+                mine.listeners.remove(l);
+            }
+        }
+    }
+
+    synchronized void add(Watcher w, int index) {
         Iterator<Ref> it = observers.iterator();
         while (it.hasNext()) {
             Ref ref = it.next();
-            if (r == ref) {
-                return;
-            }
             final Watcher rw = ref.get();
             if (rw == null) {
                 it.remove();
                 continue;
             }
-            if (rw == w && r.prop.equals(r.prop)) {
+            if (rw == w) {
+                ref.add(index);
                 return;
             }
         }
+        Ref r = new Ref(w);
+        r.add(index);
         observers.add(r);
     }
-    
+
     private static final class Watcher {
-        final Thread owner;
         final Proto proto;
-        final String prop;
+        final int prop;
 
-        Watcher(Proto proto, String prop) {
-            this.owner = Thread.currentThread();
+        Watcher(Proto proto, int prop) {
             this.proto = proto;
             this.prop = prop;
         }
-        
+
         @Override
         public String toString() {
             return "Watcher: " + proto + ", " + prop;
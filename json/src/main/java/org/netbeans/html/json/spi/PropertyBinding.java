@@ -48,6 +48,7 @@ import net.java.html.BrwsrCtx;
 import net.java.html.json.ComputedProperty;
 import org.netbeans.html.json.impl.Bindings;
 import org.netbeans.html.json.impl.JSON;
+import org.netbeans.html.json.impl.JSONList;
 import org.netbeans.html.json.impl.PropertyBindingAccessor;
 import org.netbeans.html.json.impl.RcvrJSON;
 
@@ -77,11 +78,36 @@ public abstract class PropertyBinding {
                 proto.onChange(propIndex);
             }
 
+            @Override
+            protected void invalidateValue(Proto proto, int propIndex) {
+                proto.invalidate(propIndex);
+            }
+
+            @Override
+            protected int propertyIndex(Proto.Type<?> type, String name) {
+                return type.indexOf(name);
+            }
+
+            @Override
+            protected Object propertyValue(Proto.Type<?> type, Object model, int index) {
+                return type.getValueOf(model, index);
+            }
+
+            @Override
+            protected void notifyMutated(Proto proto, int propIndex, Object oldValue, Object newValue) {
+                proto.notifyMutated(propIndex, oldValue, newValue);
+            }
+
             @Override
             protected Proto findProto(Proto.Type<?> type, Object object) {
                 return type.protoFor(object);
             }
 
+            @Override
+            protected void listenTo(Proto proto, JSONList.Listener listener, boolean add) {
+                Observers.listen(proto, listener, add);
+            }
+
             @Override
             protected <Model> Model cloneTo(Proto.Type<Model> type, Model model, BrwsrCtx c) {
                 return type.cloneTo(model, c);
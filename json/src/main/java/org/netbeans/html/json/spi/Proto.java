@@ -42,13 +42,16 @@
  */
 package org.netbeans.html.json.spi;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import net.java.html.BrwsrCtx;
 import net.java.html.json.ComputedProperty;
 import net.java.html.json.Model;
 import net.java.html.json.Property;
+import org.netbeans.html.json.impl.Batch;
 import org.netbeans.html.json.impl.Bindings;
 import org.netbeans.html.json.impl.JSON;
 import org.netbeans.html.json.impl.JSON.WS;
@@ -73,7 +76,17 @@ public final class Proto {
     private final Type type;
     private final net.java.html.BrwsrCtx context;
     private org.netbeans.html.json.impl.Bindings ko;
-    private Observers observers;
+    private volatile Observers observers;
+    private Object[] cache;
+    private static final Object NULL = new Object();
+    private static final Object COMPUTING = new Object();
+
+    /** Marker returned from {@link #cachedValue(int)} when there is no
+     * cached value and the caller is expected to compute it.
+     *
+     * @since 2.0
+     */
+    public static final Object NOT_CACHED = new Object();
 
     Proto(Object obj, Type type, BrwsrCtx context) {
         this.obj = obj;
@@ -97,7 +110,7 @@ public final class Proto {
      * @throws IllegalStateException if already locked
      */
     public void acquireLock() throws IllegalStateException {
-        acquireLock(null);
+        Observers.beginComputing(this, -1);
     }
 
     /** Acquires global lock to compute a {@link ComputedProperty derived property}
@@ -112,7 +125,21 @@ public final class Proto {
      * @since 0.9
      */
     public void acquireLock(String propName) throws IllegalStateException {
-        Observers.beginComputing(this, propName);
+        Observers.beginComputing(this, type.indexOf(propName));
+    }
+
+    /** Acquires global lock to compute a {@link ComputedProperty derived property}
+     * on this proto object. Just like {@link #acquireLock(java.lang.String)},
+     * but identifies the property by its index.
+     *
+     * @param index index of the property as used during
+     *   {@link Type#registerProperty(java.lang.String, int, boolean) registration}
+     * @throws IllegalStateException thrown when there is a cyclic
+     *   call is detected
+     * @since 2.0
+     */
+    public void acquireLock(int index) throws IllegalStateException {
+        Observers.beginComputing(this, index);
     }
 
     /** A property on this proto object is about to be accessed. Verifies
@@ -127,7 +154,20 @@ public final class Proto {
      * @since 0.9
      */
     public void accessProperty(String propName) throws IllegalStateException {
-        Observers.accessingValue(this, propName);
+        Observers.accessingValue(this, type.indexOf(propName));
+    }
+
+    /** A property on this proto object is about to be accessed. Just
+     * like {@link #accessProperty(java.lang.String)}, but identifies
+     * the property by its index.
+     *
+     * @param index index of the property as used during
+     *   {@link Type#registerProperty(java.lang.String, int, boolean) registration}
+     * @throws IllegalStateException if the model is locked
+     * @since 2.0
+     */
+    public void accessProperty(int index) throws IllegalStateException {
+        Observers.accessingValue(this, index);
     }
 
     /** Verifies the model is not locked otherwise throws an exception.
@@ -144,6 +184,25 @@ public final class Proto {
         Observers.finishComputing(this);
     }
 
+    /** Switches the model into unlocked state after computing
+     * a {@link ComputedProperty derived property}. Just like
+     * {@link #releaseLock()}, but also forgets that the value of the
+     * property is being computed, if the computation failed and no value
+     * has been {@link #cacheValue(int, java.lang.Object) remembered}.
+     *
+     * @param index index of the property as used during
+     *   {@link Type#registerProperty(java.lang.String, int, boolean) registration}
+     * @since 2.0
+     */
+    public void releaseLock(int index) {
+        synchronized (this) {
+            if (cache != null && cache[index] == COMPUTING) {
+                cache[index] = null;
+            }
+        }
+        Observers.finishComputing(this);
+    }
+
     /** Whenever model changes a property. It should notify the
      * associated technology by calling this method.
      * Since 0.8.3: This method may be called by any thread - it reschedules
@@ -153,15 +212,7 @@ public final class Proto {
      * @param propName name of the changed property
      */
     public void valueHasMutated(final String propName) {
-        context.execute(new Runnable() {
-            @Override
-            public void run() {
-                if (ko != null) {
-                    ko.valueHasMutated(propName, null, null);
-                }
-                Observers.valueHasMutated(Proto.this, propName);
-            }
-        });
+        valueHasMutated(propName, null, null);
     }
 
     /** Whenever model changes a propertyit should notify the
@@ -181,17 +232,129 @@ public final class Proto {
     public void valueHasMutated(
         final String propName, final Object oldValue, final Object newValue
     ) {
+        final int index = type.indexOf(propName);
+        if (index >= 0) {
+            valueHasMutated(index, oldValue, newValue);
+            return;
+        }
         context.execute(new Runnable() {
             @Override
             public void run() {
                 if (ko != null) {
                     ko.valueHasMutated(propName, oldValue, newValue);
                 }
-                Observers.valueHasMutated(Proto.this, propName);
             }
         });
     }
 
+    /** Whenever model changes a property it should notify the
+     * associated technology. Just like
+     * {@link #valueHasMutated(java.lang.String, java.lang.Object, java.lang.Object)},
+     * but identifies the property by its index. The name of the property
+     * is only looked up when the associated {@link Technology} is notified.
+     * This method may be called by any thread - it reschedules
+     * its actual execution into appropriate one by using
+     * {@link BrwsrCtx#execute(java.lang.Runnable)}. When called during
+     * {@link net.java.html.json.Models#batch(java.lang.Runnable) a batch},
+     * the notification is postponed until the batch is over.
+     *
+     * @param index index of the property as used during
+     *   {@link Type#registerProperty(java.lang.String, int, boolean) registration}
+     * @param oldValue provides previous value of the property
+     *   or <code>null</code> if not known
+     * @param newValue provides new value of the property
+     *   or <code>null</code> if not known
+     * @since 2.0
+     */
+    public void valueHasMutated(
+        final int index, final Object oldValue, final Object newValue
+    ) {
+        invalidate(index);
+        Observers.mutated(this);
+        if (!Batch.valueHasMutated(this, index, oldValue, newValue)) {
+            context.execute(new Runnable() {
+                @Override
+                public void run() {
+                    notifyMutated(index, oldValue, newValue);
+                }
+            });
+        }
+        for (int dependant : type.dependants[index]) {
+            valueHasMutated(dependant, null, null);
+        }
+    }
+
+    /** Returns cached value of a {@link ComputedProperty derived property}.
+     * If there is no such value, the caller is expected to compute it
+     * and remember it by calling {@link #cacheValue(int, java.lang.Object)}.
+     * The cached value is discarded when the property
+     * {@link #valueHasMutated(int, java.lang.Object, java.lang.Object) is changed}
+     * or when any of the properties it has been computed from changes.
+     *
+     * @param index index of the property as used during
+     *   {@link Type#registerProperty(java.lang.String, int, boolean) registration}
+     * @return the cached value or {@link #NOT_CACHED},
+     *   if the value needs to be computed
+     * @since 2.0
+     */
+    public Object cachedValue(int index) {
+        synchronized (this) {
+            if (cache == null) {
+                cache = new Object[type.propertyNames.length];
+            }
+            Object value = cache[index];
+            if (value == null || value == COMPUTING) {
+                // remember the value is being computed
+                cache[index] = COMPUTING;
+                return NOT_CACHED;
+            }
+            return value == NULL ? null : value;
+        }
+    }
+
+    /** Remembers a computed value of a {@link ComputedProperty derived property}.
+     * The value is only remembered if it hasn't been invalidated
+     * since the previous call to {@link #cachedValue(int)}.
+     *
+     * @param <T> type of the value
+     * @param index index of the property as used during
+     *   {@link Type#registerProperty(java.lang.String, int, boolean) registration}
+     * @param value the computed value
+     * @return the <code>value</code>
+     * @since 2.0
+     */
+    public <T> T cacheValue(int index, T value) {
+        synchronized (this) {
+            if (cache != null && cache[index] == COMPUTING) {
+                cache[index] = value == null ? NULL : value;
+            }
+        }
+        return value;
+    }
+
+    /** Discards cached value of a property and of all properties
+     * known to be computed from it.
+     */
+    final void invalidate(int index) {
+        final boolean cached;
+        synchronized (this) {
+            cached = cache != null && cache[index] != null;
+            if (cached) {
+                cache[index] = null;
+            }
+        }
+        if (cached || !type.isReadOnly(index)) {
+            Observers.invalidate(this, index);
+        }
+    }
+
+    final void notifyMutated(int index, Object oldValue, Object newValue) {
+        if (ko != null) {
+            ko.valueHasMutated(index, oldValue, newValue);
+        }
+        Observers.valueHasMutated(this, index);
+    }
+
     /** Initializes the associated model in the current {@link #getContext() context}.
      * In case of <em>knockout.js</em> technology, applies given bindings
      * of the current model to the <em>body</em> element of the page.
@@ -284,6 +447,55 @@ public final class Proto {
         JSON.extract(context, json, props, values);
     }
 
+    /** Takes an object representing JSON result and extracts some of its
+     * properties into an array owned by the current thread. The array
+     * is reused for reading other instances of the same model type,
+     * as such it should be handed back via {@link #release(java.lang.Object[])}
+     * once its values are consumed.
+     *
+     * @param json the JSON object (actual type depends on the associated
+     *   {@link Technology})
+     * @param props list of properties to extract
+     * @return array with extracted values of the same length as
+     *   <code>props</code>
+     * @since 2.0
+     */
+    public Object[] extract(Object json, String[] props) {
+        final ThreadLocal<Object[]> buffer = typeBuffer();
+        Object[] values = buffer.get();
+        if (values != null && values.length == props.length) {
+            buffer.set(null);
+        } else {
+            values = new Object[props.length];
+        }
+        boolean ok = false;
+        try {
+            JSON.extract(context, json, props, values);
+            ok = true;
+        } finally {
+            if (!ok) {
+                release(values);
+            }
+        }
+        return values;
+    }
+
+    /** Gives back an array obtained from {@link #extract(java.lang.Object, java.lang.String[])}.
+     * The array is then reused by the next extraction on the same thread.
+     *
+     * @param values the array with already consumed values
+     * @since 2.0
+     */
+    public void release(Object[] values) {
+        Arrays.fill(values, null);
+        typeBuffer().set(values);
+    }
+
+    private ThreadLocal<Object[]> typeBuffer() {
+        Type<?> t = type;
+        return t.buffer;
+    }
+
     /** Converts raw JSON <code>data</code> into a Java {@link Model} class.
      *
      * @param <T> type of the model class
@@ -295,6 +507,20 @@ public final class Proto {
         return JSON.read(context, modelClass, data);
     }
 
+    /** Converts an array of raw JSON objects into Java {@link Model} classes.
+     * Properties of all the elements may be obtained at once, if the
+     * {@link Transfer} supports {@link Transfer.BatchExtract}.
+     *
+     * @param <T> type of the model class
+     * @param modelClass the type of the class to create
+     * @param data the raw JSON data
+     * @param collectTo collection to add the newly created instances to
+     * @since 2.0
+     */
+    public <T> void read(Class<T> modelClass, Object[] data, Collection<? super T> collectTo) {
+        JSON.readArray(context, modelClass, data, collectTo);
+    }
+
     /** Initializes asynchronous JSON connection to specified URL. Delegates
      * to {@link #loadJSON(int, java.lang.String, java.lang.String, java.lang.String, java.lang.Object, java.lang.Object...) }
      * with no extra parameters.
@@ -473,7 +699,55 @@ public final class Proto {
      * @return new, empty list associated with this proto-object and its model
      */
     public <T> List<T> createList(String propName, int onChange, String... dependingProps) {
-        return new JSONList<T>(this, propName, onChange, dependingProps);
+        int[] deps = new int[dependingProps.length];
+        for (int i = 0; i < deps.length; i++) {
+            deps[i] = type.indexOf(dependingProps[i]);
+        }
+        return JSONList.create(null, this, type.indexOf(propName), onChange, deps);
+    }
+
+    /** Creates new JSON like observable list. Just like
+     * {@link #createList(java.lang.String, int, java.lang.String...)},
+     * but identifies the properties by their indexes.
+     *
+     * @param <T> the type of the list elements
+     * @param type the type of the list elements - lists of primitive
+     *   <code>int</code>, <code>double</code> and <code>boolean</code>
+     *   types keep their elements unboxed
+     * @param index index of the property this list is associated with
+     * @param onChange index of the property to use when the list is modified
+     *   during callback to {@link Type#onChange(java.lang.Object, int)}.
+     *   If the value is {@link Integer#MIN_VALUE}, then the list is
+     *   not fully {@link Property#mutable()} and throws {@link UnsupportedOperationException}
+     *   on such attempts.
+     * @param dependingProps indexes of {@link ComputedProperty derived properties}
+     *   that depend on the value of the list, if none are specified, the
+     *   {@link Type#registerDependencies(int, int...) registered dependencies} are used
+     * @return new, empty list associated with this proto-object and its model
+     * @since 2.0
+     */
+    public <T> List<T> createList(Class<T> type, int index, int onChange, int... dependingProps) {
+        if (dependingProps.length == 0) {
+            dependingProps = this.type.dependants(index);
+        }
+        return JSONList.create(type, this, index, onChange, dependingProps);
+    }
+
+    /** Finds an element of a list by value of its key property. The list
+     * keeps a hash index from the value of the <code>key</code> property
+     * of its elements to the elements. The index is maintained as the list
+     * is modified and refreshed when the key property of any model of the
+     * element type changes.
+     *
+     * @param <T> type of the list elements
+     * @param list list created by {@link #createList(java.lang.Class, int, int, int...)}
+     * @param key name of a property of the elements
+     * @param value the value of the key to search for
+     * @return an element with the given key value or <code>null</code>
+     * @since 2.0
+     */
+    public <T> T findByKey(List<T> list, String key, Object value) {
+        return JSONList.findByKey(list, key, value);
     }
 
     /** Copies content of one collection to another, re-assigning all its
@@ -535,11 +809,21 @@ public final class Proto {
         type.onChange(obj, index);
     }
 
+    final Object model() {
+        return obj;
+    }
+
     final Observers observers(boolean create) {
-        if (create && observers == null) {
-            observers = new Observers();
+        Observers o = observers;
+        if (o == null && create) {
+            synchronized (this) {
+                o = observers;
+                if (o == null) {
+                    o = observers = new Observers(type.propertyNames.length);
+                }
+            }
         }
-        return observers;
+        return o;
     }
 
     /** Functionality used by the code generated by annotation
@@ -552,7 +836,9 @@ public final class Proto {
         private final Class<Model> clazz;
         private final String[] propertyNames;
         private final byte[] propertyType;
+        private final int[][] dependants;
         private final String[] functions;
+        private final ThreadLocal<Object[]> buffer = new ThreadLocal<Object[]>();
 
         /** Constructor for subclasses generated by the annotation processor
          * associated with {@link net.java.html.json.Model} annotation.
@@ -574,6 +860,8 @@ public final class Proto {
             this.clazz = clazz;
             this.propertyNames = new String[properties];
             this.propertyType = new byte[properties];
+            this.dependants = new int[properties][];
+            Arrays.fill(dependants, new int[0]);
             this.functions = new String[functions];
             JSON.register(clazz, this);
         }
@@ -613,6 +901,51 @@ public final class Proto {
             propertyType[index] = (byte) ((readOnly ? 1 : 0) | (constant ? 2 : 0));
         }
 
+        /** Registers properties a {@link ComputedProperty derived property}
+         * is computed from. Whenever any of the <code>sources</code>
+         * {@link Proto#valueHasMutated(int, java.lang.Object, java.lang.Object) changes},
+         * the derived property is reported as changed as well and its
+         * {@link Proto#cachedValue(int) cached value} is discarded.
+         * Dependencies which cannot be determined statically (like
+         * properties of other models) are tracked at runtime
+         * by {@link Proto#acquireLock(int)}.
+         *
+         * @param computed index of the derived property
+         * @param sources indexes of properties it is computed from
+         * @since 2.0
+         */
+        protected final void registerDependencies(int computed, int... sources) {
+            for (int source : sources) {
+                int[] arr = Arrays.copyOf(dependants[source], dependants[source].length + 1);
+                arr[arr.length - 1] = computed;
+                dependants[source] = arr;
+            }
+        }
+
+        final int[] dependants(int index) {
+            return dependants[index];
+        }
+
+        /** Finds index of a registered property.
+         *
+         * @param name name of the property
+         * @return its index or <code>-1</code>
+         */
+        final int indexOf(String name) {
+            if (name != null) {
+                for (int i = 0; i < propertyNames.length; i++) {
+                    if (name.equals(propertyNames[i])) {
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        final boolean isReadOnly(int index) {
+            return (propertyType[index] & 1) != 0;
+        }
+
         /** Registers function of given name at given index.
          *
          * @param name name of the function
@@ -685,6 +1018,43 @@ public final class Proto {
          */
         protected abstract Model read(BrwsrCtx c, Object json);
 
+        final Object getValueOf(Object model, int index) {
+            return getValue(clazz.cast(model), index);
+        }
+
+        /** Reads an instance of the model class directly from a stream
+         * of JSON tokens. Classes generated for the {@link Model} annotation
+         * override this method to fill their fields without creating
+         * any intermediate representation of the data. The default
+         * implementation, used by classes generated by older versions,
+         * reads the JSON object into a tree of maps and arrays and
+         * passes it to {@link #read(net.java.html.BrwsrCtx, java.lang.Object)}.
+         *
+         * @param c the browser context to work in
+         * @param in the stream positioned at the start of a JSON object
+         * @return new instance of model class filled by the data
+         * @throws IOException if the stream cannot be read
+         * @since 2.0
+         */
+        protected Model readFrom(BrwsrCtx c, JSONReader in) throws IOException {
+            return read(c, JSON.readTree(in));
+        }
+
+        /** Writes an instance of the model class as a JSON object.
+         * Classes generated for the {@link Model} annotation
+         * override this method to write directly from their fields.
+         * The default implementation writes the {@link Object#toString()}
+         * of the model.
+         *
+         * @param model the instance of the model class
+         * @param out the stream to write to
+         * @throws IOException if the stream cannot be written
+         * @since 2.0
+         */
+        protected void writeTo(Model model, JSONWriter out) throws IOException {
+            out.raw(model.toString());
+        }
+
         /** Called when a {@link #registerProperty(java.lang.String, int, boolean) registered property}
          * changes its value.
          *
@@ -749,11 +1119,92 @@ public final class Proto {
          * @param dest array to be filled with read type instances
          */
         public <T> void copyJSON(BrwsrCtx context, Object[] src, Class<T> destType, T[] dest) {
-            for (int i = 0; i < src.length && i < dest.length; i++) {
-                dest[i] = org.netbeans.html.json.impl.JSON.read(context, destType, src[i]);
+            if (src.length > dest.length) {
+                Object[] copy = new Object[dest.length];
+                System.arraycopy(src, 0, copy, 0, dest.length);
+                src = copy;
+            }
+            List<T> read = new ArrayList<T>(src.length);
+            org.netbeans.html.json.impl.JSON.readArray(context, destType, src, read);
+            for (int i = 0; i < src.length; i++) {
+                dest[i] = read.get(i);
             }
         }
 
+        /** Reads a single value of given type from a stream of JSON tokens.
+         * Used by classes generated for the {@link Model} annotation.
+         *
+         * @param <T> the type of the value
+         * @param c the browser context to work in
+         * @param type a {@link Model model class}, an enum, a string or
+         *   a boxed primitive type
+         * @param in the stream to read from
+         * @return the read value or <code>null</code>
+         * @throws IOException if the stream cannot be read
+         * @since 2.0
+         */
+        public final <T> T readValue(BrwsrCtx c, Class<T> type, JSONReader in) throws IOException {
+            if (in.peek() == JSONReader.Token.NULL) {
+                in.nextNull();
+                return null;
+            }
+            if (type == String.class) {
+                return type.cast(in.nextString());
+            }
+            if (type.isEnum()) {
+                String name = in.nextString();
+                try {
+                    return type.cast(enumValue(type, name));
+                } catch (IllegalArgumentException ex) {
+                    ex.printStackTrace();
+                    return null;
+                }
+            }
+            Type<?> model = JSON.findType(type);
+            if (model != null) {
+                return type.cast(model.readFrom(c, in));
+            }
+            return extractValue(type, in.nextValue());
+        }
+
+        /** Reads JSON array of values of given type from a stream of
+         * JSON tokens. A single value (not wrapped in an array) is read
+         * as an array with one element.
+         * Used by classes generated for the {@link Model} annotation.
+         *
+         * @param <T> the type of the values
+         * @param c the browser context to work in
+         * @param type a {@link Model model class}, an enum, a string or
+         *   a boxed primitive type
+         * @param in the stream to read from
+         * @param collectTo collection to add the values to
+         * @throws IOException if the stream cannot be read
+         * @since 2.0
+         */
+        public final <T> void readArray(
+            BrwsrCtx c, Class<T> type, JSONReader in, Collection<? super T> collectTo
+        ) throws IOException {
+            switch (in.peek()) {
+                case NULL:
+                    in.nextNull();
+                    return;
+                case BEGIN_ARRAY:
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        collectTo.add(readValue(c, type, in));
+                    }
+                    in.endArray();
+                    return;
+                default:
+                    collectTo.add(readValue(c, type, in));
+            }
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private static Object enumValue(Class<?> type, String name) {
+            return name == null ? null : Enum.valueOf((Class) type, name);
+        }
+
         /** Compares two objects that can be converted to integers.
          * @param a first value
          * @param b second value
@@ -826,6 +1277,58 @@ public final class Proto {
             return JSON.numberValue(val);
         }
 
+        /** Converts the value to <code>int</code>.
+         *
+         * @param val the value
+         * @return the converted value or <code>0</code> if there is no value
+         * @since 2.0
+         */
+        public final int intValue(Object val) {
+            if (val instanceof Number) {
+                return ((Number)val).intValue();
+            }
+            return val == null ? 0 : JSON.numberValue(val).intValue();
+        }
+
+        /** Converts the value to <code>long</code>.
+         *
+         * @param val the value
+         * @return the converted value or <code>0</code> if there is no value
+         * @since 2.0
+         */
+        public final long longValue(Object val) {
+            if (val instanceof Number) {
+                return ((Number)val).longValue();
+            }
+            return val == null ? 0 : JSON.numberValue(val).longValue();
+        }
+
+        /** Converts the value to <code>float</code>.
+         *
+         * @param val the value
+         * @return the converted value or <code>0</code> if there is no value
+         * @since 2.0
+         */
+        public final float floatValue(Object val) {
+            if (val instanceof Number) {
+                return ((Number)val).floatValue();
+            }
+            return val == null ? 0 : JSON.numberValue(val).floatValue();
+        }
+
+        /** Converts the value to <code>double</code>.
+         *
+         * @param val the value
+         * @return the converted value or <code>0</code> if there is no value
+         * @since 2.0
+         */
+        public final double doubleValue(Object val) {
+            if (val instanceof Number) {
+                return ((Number)val).doubleValue();
+            }
+            return val == null ? 0 : JSON.numberValue(val).doubleValue();
+        }
+
         /** Converts the value to character.
          *
          * @param val the value
@@ -891,7 +1394,9 @@ public final class Proto {
         /** Special dealing with array &amp; {@link List} values. This method
          * takes the provided collection, empties it and fills it again
          * with values extracted from <code>value</code> (which is supposed
-         * to be an array).
+         * to be an array). Since 2.0, when the collection has been created by
+         * {@link Proto#createList(java.lang.Class, int, int, int...)}, only the differences
+         * between its old and new content are reported as changes.
          *
          * @param <T> the type of list elements
          * @param arr collection to fill with elements in value
@@ -901,6 +1406,9 @@ public final class Proto {
          * @since 1.0
          */
         public final <T> void replaceValue(Collection<? super T> arr, Class<T> type, Object value) {
+            if (arr instanceof JSONList && ((JSONList) arr).replaceArray(value)) {
+                return;
+            }
             List<T> tmp = new ArrayList<T>();
             if (value instanceof Object[]) {
                 for (Object e : (Object[]) value) {
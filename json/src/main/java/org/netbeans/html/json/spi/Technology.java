@@ -213,4 +213,31 @@ public interface Technology<Data> {
          */
         public D wrapModel(Object model, Object copyFrom, PropertyBinding[] propArr, FunctionBinding[] funcArr);
     }
+
+    /** Technologies that can update arrays incrementally may implement
+     * this interface. Rather than being notified about a change of the
+     * whole array property via
+     * {@link ValueMutated#valueHasMutated(java.lang.Object, java.lang.String, java.lang.Object, java.lang.Object)},
+     * they receive the individual modifications made to the
+     * list in the Java model.
+     *
+     * @param <D> the internal data for the technology
+     * @since 2.0
+     */
+    public static interface ArrayMutated<D> extends Technology<D> {
+        /** Elements of an array property have been removed and/or inserted.
+         * The modification has the same meaning as JavaScript's
+         * <code>Array.splice</code> applied to the previously known
+         * value of the property.
+         *
+         * @param data the data of the model owning the array
+         * @param propertyName name of the array property
+         * @param index position in the array where the modification starts
+         * @param removed number of elements removed at the <code>index</code>
+         * @param inserted elements to insert at the <code>index</code>,
+         *   converted the same way as elements passed to
+         *   {@link #wrapArray(java.lang.Object[])}
+         */
+        public void arrayMutated(D data, String propertyName, int index, int removed, Object[] inserted);
+    }
 }
@@ -92,5 +92,31 @@ public interface Transfer {
      * @param call description of the call to make
      */
     public void loadJSON(JSONCall call);
-    
+
+    /** Transfers that can inspect many objects at once may implement this
+     * additional interface. When an array of JSON objects is converted to
+     * {@link net.java.html.json.Model model classes}, all the properties
+     * of all its elements are then obtained by a single call to
+     * {@link #extract(java.lang.Object[], java.lang.String[], java.lang.Object[])}
+     * rather than by calling
+     * {@link Transfer#extract(java.lang.Object, java.lang.String[], java.lang.Object[])}
+     * for each element separately.
+     *
+     * @since 2.0
+     */
+    public static interface BatchExtract extends Transfer {
+        /** Inspects properties of many objects at once. The result is a
+         * matrix of <code>objs.length</code> rows and <code>props.length</code>
+         * columns stored in a flat array: value of property
+         * <code>props[j]</code> of object <code>objs[i]</code> is
+         * stored at index <code>i * props.length + j</code>.
+         *
+         * @param objs the objects to inspect
+         * @param props the names of properties to check on each of the objects
+         * @param values array of length <code>objs.length * props.length</code>
+         *   to be filled by values of the properties. If a property is
+         *   not defined, a <code>null</code> value should be stored in the array
+         */
+        public void extract(Object[] objs, String[] props, Object[] values);
+    }
 }
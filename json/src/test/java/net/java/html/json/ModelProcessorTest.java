@@ -82,6 +82,34 @@ public class ModelProcessorTest {
         }
     }
 
+    @Test public void keyOnlyForArraysOfModels() throws IOException {
+        String html = "<html><body>"
+            + "</body></html>";
+        String code = "package x.y.z;\n"
+            + "import net.java.html.json.Model;\n"
+            + "import net.java.html.json.Property;\n"
+            + "@Model(className=\"XModel\", properties={\n"
+            + "  @Property(name=\"names\", type=String.class, array=true, key=\"length\")\n"
+            + "})\n"
+            + "class X {\n"
+            + "}\n";
+
+        Compile c = Compile.create(html, code);
+        assertFalse(c.getErrors().isEmpty(), "One error: " + c.getErrors());
+        boolean ok = false;
+        StringBuilder msgs = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> e : c.getErrors()) {
+            String msg = e.getMessage(Locale.ENGLISH);
+            if (msg.contains("arrays of models")) {
+                ok = true;
+            }
+            msgs.append("\n").append(msg);
+        }
+        if (!ok) {
+            fail("Should contain warning about key:" + msgs);
+        }
+    }
+
     @Test public void verifyWrongTypeInInnerClass() throws IOException {
         String html = "<html><body>"
             + "</body></html>";
@@ -0,0 +1,512 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package net.java.html.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import net.java.html.BrwsrCtx;
+import org.netbeans.html.json.spi.JSONReader;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+public class StreamingTest {
+    @Test public void readPrimitiveTypes() throws IOException {
+        Types t = Models.read(BrwsrCtx.EMPTY, Types.class, new StringReader(
+            "{ \"intX\" : 33, \"byteX\" : 3, \"shortX\" : \"10\", \"longX\" : 12345678901,\n"
+            + " \"floatX\" : 99.5, \"doubleX\" : 1.5e2, \"charX\" : \"\\u0041\",\n"
+            + " \"StringX\" : \"Ahoj\\n\\\"svete\\\"\", \"boolX\" : true }"
+        ));
+        assertEquals(t.getIntX(), 33);
+        assertEquals(t.getByteX(), (byte)3);
+        assertEquals(t.getShortX(), (short)10);
+        assertEquals(t.getLongX(), 12345678901L);
+        assertEquals(t.getFloatX(), 99.5f);
+        assertEquals(t.getDoubleX(), 150.0);
+        assertEquals(t.getCharX(), 'A');
+        assertEquals(t.getStringX(), "Ahoj\n\"svete\"");
+        assertTrue(t.isBoolX());
+    }
+
+    @Test public void readArraysEnumsAndNestedModels() throws IOException {
+        People p = Models.read(BrwsrCtx.EMPTY, People.class, new StringReader(
+            "{ \"unknown\" : { \"a\" : [ 1, { \"b\" : null } ] },\n"
+            + " \"info\" : [ { \"firstName\" : \"Jarda\", \"sex\" : \"MALE\" }, null,\n"
+            + "   { \"lastName\" : \"Tulachova\", \"sex\" : \"FEMALE\", \"extra\" : [] } ],\n"
+            + " \"nicknames\" : \"jtulach\", \"age\" : [ 41, 39.0 ], \"sex\" : [ \"FEMALE\" ] }"
+        ));
+        assertEquals(p.getInfo().size(), 3);
+        assertEquals(p.getInfo().get(0).getFirstName(), "Jarda");
+        assertEquals(p.getInfo().get(0).getSex(), Sex.MALE);
+        assertNull(p.getInfo().get(1));
+        assertEquals(p.getInfo().get(2).getLastName(), "Tulachova");
+        assertEquals(p.getInfo().get(2).getSex(), Sex.FEMALE);
+        assertEquals(p.getNicknames().size(), 1, "Single value is an array");
+        assertEquals(p.getNicknames().get(0), "jtulach");
+        assertEquals(p.getAge().size(), 2);
+        assertEquals(p.getAge().get(0), Integer.valueOf(41));
+        assertEquals(p.getAge().get(1), Integer.valueOf(39));
+        assertEquals(p.getSex().get(0), Sex.FEMALE);
+    }
+
+    @Test public void writeIsSameAsToString() throws IOException {
+        Person p = new Person("Jarda", "Tulach", Sex.MALE);
+        People people = new People();
+        people.getInfo().add(p);
+        people.getNicknames().add("jtulach");
+        people.getAge().add(41);
+
+        assertEquals(write(p), p.toString());
+        assertEquals(write(people), people.toString());
+    }
+
+    @Test public void writeAndReadBack() throws IOException {
+        People people = new People();
+        people.getInfo().add(new Person("Jarda", null, Sex.MALE));
+        people.getInfo().add(new Person("La\u0001\t\\\"", "Tulachova", Sex.FEMALE));
+        people.getAge().add(41);
+        people.getSex().add(Sex.FEMALE);
+
+        String json = write(people);
+        assertTrue(json.contains("La\\u0001\\t\\\\\\\""), "Control characters escaped: " + json);
+
+        People copy = Models.read(BrwsrCtx.EMPTY, People.class, new StringReader(json));
+        assertEquals(copy, people);
+    }
+
+    @Test public void writeBytes() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            sb.append(i % 7 == 0 ? "\ud83d\ude00" : i % 5 == 0 ? "\u010d" : i % 3 == 0 ? "\u20ac" : "a");
+            sb.append((char) (i % 40));
+        }
+        Person p = new Person(sb.toString(), "Tulach", Sex.MALE);
+        String json = write(p);
+        assertEquals(json, p.toString(), "toString escapes control characters too");
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Models.write(p, os);
+        assertEquals(os.toByteArray(), json.getBytes("UTF-8"));
+
+        ByteBuffer bb = ByteBuffer.allocate(os.size() + 10);
+        bb.put((byte) 'x');
+        Models.write(p, bb);
+        assertEquals(bb.position(), os.size() + 1);
+        bb.flip();
+        bb.get();
+        byte[] arr = new byte[bb.remaining()];
+        bb.get(arr);
+        assertEquals(arr, json.getBytes("UTF-8"));
+
+        Person copy = Models.read(BrwsrCtx.EMPTY, Person.class, new InputStreamReader(
+            new ByteArrayInputStream(arr), "UTF-8"
+        ));
+        assertEquals(copy.getFirstName(), p.getFirstName());
+    }
+
+    @Test public void unpairedSurrogatesSurviveRoundTrip() throws IOException {
+        StringBuilder sb = new StringBuilder();
+        // {"firstName":" takes 14 characters, the high surrogate of the pair
+        // is the last character of the internal buffer, then lone surrogates
+        for (int i = 0; i < 4096 - 14 - 1; i++) {
+            sb.append('a');
+        }
+        sb.append("\ud83d\ude00x\ude00y\ud83d");
+        Person p = new Person(sb.toString(), "\ud83d", Sex.MALE);
+        String json = write(p);
+        assertEquals(json, p.toString());
+        assertTrue(json.contains("x\\ude00y\\ud83d\""), "Lone surrogates escaped: " + json.substring(4090));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Models.write(p, os);
+        assertEquals(os.toByteArray(), json.getBytes("UTF-8"));
+        Person copy = Models.read(BrwsrCtx.EMPTY, Person.class, new InputStreamReader(
+            new ByteArrayInputStream(os.toByteArray()), "UTF-8"
+        ));
+        assertEquals(copy.getFirstName(), p.getFirstName());
+        assertEquals(copy.getLastName(), p.getLastName());
+
+        Types t = new Types();
+        t.setCharX('\ud800');
+        os.reset();
+        Models.write(t, os);
+        String text = new String(os.toByteArray(), "UTF-8");
+        assertTrue(text.contains("\"charX\":\"\\ud800\""), "Escaped: " + text);
+        Types tCopy = Models.read(BrwsrCtx.EMPTY, Types.class, new StringReader(text));
+        assertEquals(tCopy.getCharX(), '\ud800');
+    }
+
+    @Test public void nonFiniteNumbersAreWrittenAsNull() throws IOException {
+        Types t = new Types();
+        t.setDoubleX(Double.NaN);
+        t.setFloatX(Float.NEGATIVE_INFINITY);
+        t.setIntX(3);
+        String json = write(t);
+        assertEquals(json, t.toString());
+        assertTrue(json.contains("\"doubleX\":null"), json);
+        assertTrue(json.contains("\"floatX\":null"), json);
+
+        Types copy = Models.read(BrwsrCtx.EMPTY, Types.class, new StringReader(json));
+        assertEquals(copy.getDoubleX(), 0.0);
+        assertEquals(copy.getFloatX(), 0.0f);
+        assertEquals(copy.getIntX(), 3);
+
+        t.setDoubleX(Double.POSITIVE_INFINITY);
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        Models.write(t, os);
+        assertTrue(new String(os.toByteArray(), "UTF-8").contains("\"doubleX\":null"));
+    }
+
+    @Test public void numbersAreWrittenAsByToString() throws IOException {
+        double[] doubles = { 0.0, -0.0, 1.0, -42.0, 9999999.0, 1e7, 1.5, 1e-5, Double.NaN, 1e300 };
+        long[] longs = { 0, 7, -7, 10, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE };
+        Types t = new Types();
+        for (double d : doubles) {
+            t.setDoubleX(d);
+            assertEquals(write(t), t.toString());
+        }
+        for (long l : longs) {
+            t.setLongX(l);
+            assertEquals(write(t), t.toString());
+        }
+    }
+
+    @Test public void singleElementOfAnArray() throws IOException {
+        Person p = Models.read(BrwsrCtx.EMPTY, Person.class, new StringReader(
+            "[ { \"firstName\" : \"Jarda\" } ]"
+        ));
+        assertEquals(p.getFirstName(), "Jarda");
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void moreElementsOfAnArrayAreRejected() throws IOException {
+        Models.read(BrwsrCtx.EMPTY, Person.class, new StringReader(
+            "[ { \"firstName\" : \"Jarda\" }, { \"firstName\" : \"Zdenek\" } ]"
+        ));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void trailingInputAfterSingleElementArrayIsRejected() throws IOException {
+        Models.read(BrwsrCtx.EMPTY, Person.class, new StringReader(
+            "[ { \"firstName\" : \"Jarda\" } ] {}"
+        ));
+    }
+
+    @Test public void modelWithoutStreamingReaderIsReadViaTree() throws IOException {
+        Legacy l = Models.read(BrwsrCtx.EMPTY, Legacy.class, new StringReader(
+            "{ \"name\" : \"parent\", \"count\" : 3, \"ignored\" : [ 1, {} ],\n"
+            + " \"child\" : { \"name\" : \"child\", \"count\" : 4.0 } }"
+        ));
+        assertEquals(l.name, "parent");
+        assertEquals(l.count, 3);
+        assertNotNull(l.child, "Nested model read");
+        assertEquals(l.child.name, "child");
+        assertEquals(l.child.count, 4);
+        assertNull(l.child.child);
+    }
+
+    @Test public void elementsAreDeliveredWhileReading() throws IOException {
+        final SlowReader r = new SlowReader(persons(100));
+        final int[] count = { 0 };
+        Models.read(BrwsrCtx.EMPTY, Person.class, r, new AbstractList<Person>() {
+            @Override
+            public boolean add(Person p) {
+                assertEquals(p.getFirstName(), "Jarda" + count[0]);
+                assertFalse(r.eof, "Element " + count[0] + " delivered before reading everything");
+                count[0]++;
+                return true;
+            }
+
+            @Override
+            public Person get(int index) {
+                throw new IndexOutOfBoundsException();
+            }
+
+            @Override
+            public int size() {
+                return 0;
+            }
+        });
+        assertEquals(count[0], 100);
+    }
+
+    @Test public void iterateOverElements() throws IOException {
+        SlowReader r = new SlowReader(persons(100));
+        Iterator<Person> it = Models.iterate(BrwsrCtx.EMPTY, Person.class, r);
+        for (int i = 0; i < 100; i++) {
+            assertTrue(it.hasNext());
+            assertFalse(r.eof, "Stream is still being read");
+            assertEquals(it.next().getFirstName(), "Jarda" + i);
+        }
+        assertFalse(it.hasNext());
+    }
+
+    @Test public void iterateOverSingleObject() throws IOException {
+        Iterator<Person> it = Models.iterate(BrwsrCtx.EMPTY, Person.class,
+            new StringReader("{ \"firstName\" : \"Jarda\" }")
+        );
+        assertTrue(it.hasNext());
+        assertEquals(it.next().getFirstName(), "Jarda");
+        assertFalse(it.hasNext());
+    }
+
+    @Test public void lenientReader() throws IOException {
+        JSONReader r = new JSONReader(new StringReader(
+            "{ 'firstName' : 'Jarda \\'J\\' \"T\"', \"lastName\" : 'Tu\tlach', 'age' : 007 }"
+        ));
+        r.setLenient(true);
+        Map<?,?> m = (Map<?,?>) r.nextValue();
+        assertEquals(m.get("firstName"), "Jarda 'J' \"T\"");
+        assertEquals(m.get("lastName"), "Tu\tlach");
+        assertEquals(m.get("age"), 7);
+    }
+
+    @Test public void apostrophesAreRejected() throws IOException {
+        assertInvalid("{ 'firstName' : \"Jarda\" }");
+        assertInvalid("{ \"firstName\" : 'Jarda' }");
+        assertInvalid("{ \"firstName\" : \"Jarda\\'s\" }");
+    }
+
+    @Test public void leadingZerosAreRejected() throws IOException {
+        assertInvalid("{ \"age\" : 007 }");
+        assertInvalid("{ \"age\" : -01 }");
+        assertInvalid("{ \"age\" : 1. }");
+        assertInvalid("{ \"age\" : -.5 }");
+        assertInvalid("{ \"age\" : 1e }");
+        Types t = Models.read(BrwsrCtx.EMPTY, Types.class, new StringReader(
+            "{ \"intX\" : -0, \"doubleX\" : 0.5e-3 }"
+        ));
+        assertEquals(t.getIntX(), 0);
+        assertEquals(t.getDoubleX(), 0.0005);
+    }
+
+    @Test public void controlCharactersInStringsAreRejected() throws IOException {
+        assertInvalid("{ \"firstName\" : \"Ja\trda\" }");
+        assertInvalid("{ \"firstName\" : \"Ja\nrda\" }");
+    }
+
+    private static void assertInvalid(String json) {
+        try {
+            Models.read(BrwsrCtx.EMPTY, Person.class, new StringReader(json));
+            fail("Should be rejected: " + json);
+        } catch (IOException ex) {
+            // OK
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void invalidJSON() throws IOException {
+        Models.read(BrwsrCtx.EMPTY, Person.class, new StringReader(
+            "{ \"firstName\" : \"Jarda\" \"lastName\" : \"Tulach\" }"
+        ));
+    }
+
+    @Test public void intOutOfRangeIsSaturated() throws IOException {
+        Types t = Models.read(BrwsrCtx.EMPTY, Types.class, new StringReader(
+            "{ \"intX\" : 12345678901, \"shortX\" : 7 }"
+        ));
+        assertEquals(t.getIntX(), Integer.MAX_VALUE);
+        t = Models.read(BrwsrCtx.EMPTY, Types.class, new StringReader(
+            "{ \"intX\" : \"-12345678901\" }"
+        ));
+        assertEquals(t.getIntX(), Integer.MIN_VALUE);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void trailingInputIsRejected() throws IOException {
+        Models.read(BrwsrCtx.EMPTY, Person.class, new StringReader(
+            "{ \"firstName\" : \"Jarda\" } xyz"
+        ));
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void trailingInputAfterArrayIsRejected() throws IOException {
+        Models.read(BrwsrCtx.EMPTY, Person.class, new StringReader(
+            "[ { \"firstName\" : \"Jarda\" } ] ]"
+        ), new ArrayList<Person>());
+    }
+
+    @Test public void trailingInputIsRejectedWhenIterating() throws IOException {
+        Iterator<Person> it = Models.iterate(BrwsrCtx.EMPTY, Person.class,
+            new StringReader("{ \"firstName\" : \"Jarda\" } {}")
+        );
+        assertTrue(it.hasNext());
+        try {
+            it.next();
+            fail("Trailing input should be reported");
+        } catch (IllegalStateException ex) {
+            assertTrue(ex.getCause() instanceof IOException, "Caused by I/O: " + ex.getCause());
+        }
+    }
+
+    @Test public void nullsInPrimitiveArraysAreZeros() throws IOException {
+        People p = Models.read(BrwsrCtx.EMPTY, People.class, new StringReader(
+            "{ \"age\" : [ null, 41, null ] }"
+        ));
+        assertEquals(p.getAge().size(), 3);
+        assertEquals(p.getAge().get(0), Integer.valueOf(0));
+        assertEquals(p.getAge().get(1), Integer.valueOf(41));
+        assertEquals(p.getAge().get(2), Integer.valueOf(0));
+    }
+
+    private static String persons(int cnt) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        for (int i = 0; i < cnt; i++) {
+            if (i > 0) {
+                sb.append(",\n");
+            }
+            sb.append("{ \"firstName\" : \"Jarda").append(i).append("\", \"sex\" : \"MALE\" }");
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    private static final class SlowReader extends Reader {
+        private final String text;
+        private int pos;
+        boolean eof;
+
+        SlowReader(String text) {
+            this.text = text;
+        }
+
+        @Override
+        public int read(char[] cbuf, int off, int len) throws IOException {
+            if (pos == text.length()) {
+                eof = true;
+                return -1;
+            }
+            int cnt = Math.min(Math.min(len, 16), text.length() - pos);
+            text.getChars(pos, pos + cnt, cbuf, off);
+            pos += cnt;
+            return cnt;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static String write(Object model) throws IOException {
+        StringWriter w = new StringWriter();
+        Models.write(model, w);
+        return w.toString();
+    }
+
+    /** Model class as generated before {@link Models#read(net.java.html.BrwsrCtx, java.lang.Class, java.io.Reader)}
+     * existed: its type doesn't override <code>readFrom</code>.
+     */
+    static final class Legacy {
+        private static final String[] NAMES = { "name", "count", "child" };
+        private static final Html4JavaType TYPE = new Html4JavaType();
+        final org.netbeans.html.json.spi.Proto proto;
+        String name;
+        int count;
+        Legacy child;
+
+        Legacy(BrwsrCtx c) {
+            proto = TYPE.createProto(this, c);
+        }
+
+        private static final class Html4JavaType
+        extends org.netbeans.html.json.spi.Proto.Type<Legacy> {
+            Html4JavaType() {
+                super(Legacy.class, StreamingTest.class, 3, 0);
+                for (int i = 0; i < NAMES.length; i++) {
+                    registerProperty(NAMES[i], i, false);
+                }
+            }
+
+            @Override
+            protected void setValue(Legacy model, int index, Object value) {
+            }
+
+            @Override
+            protected Object getValue(Legacy model, int index) {
+                return null;
+            }
+
+            @Override
+            protected void call(Legacy model, int index, Object data, Object event) {
+            }
+
+            @Override
+            protected Legacy cloneTo(Legacy model, BrwsrCtx ctx) {
+                return model;
+            }
+
+            @Override
+            protected Legacy read(BrwsrCtx c, Object json) {
+                Legacy l = new Legacy(c);
+                Object[] ret = l.proto.extract(json, NAMES);
+                try {
+                    l.name = stringValue(ret[0]);
+                    l.count = intValue(ret[1]);
+                    l.child = l.proto.read(Legacy.class, ret[2]);
+                } finally {
+                    l.proto.release(ret);
+                }
+                return l;
+            }
+
+            @Override
+            protected void onChange(Legacy model, int index) {
+            }
+
+            @Override
+            protected org.netbeans.html.json.spi.Proto protoFor(Object object) {
+                return object instanceof Legacy ? ((Legacy) object).proto : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.Models;
+import net.java.html.json.People;
+import net.java.html.json.Person;
+import net.java.html.json.Sex;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.JSONCall;
+import org.netbeans.html.json.spi.Transfer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class BatchExtractTest {
+    private MatrixTrans t;
+    private BrwsrCtx c;
+
+    @BeforeMethod public void initTransfer() {
+        t = new MatrixTrans();
+        c = Contexts.newBuilder().register(Transfer.class, t, 1).build();
+    }
+
+    @Test public void arrayIsExtractedAtOnce() throws IOException {
+        t.json = new Object[] {
+            person("Jarda", "Tulach", "MALE"),
+            null,
+            person("Zdenek", "Tulach", "MALE"),
+            person("Lenka", "Tulachova", "FEMALE"),
+        };
+        List<Person> arr = new ArrayList<Person>();
+        Models.parse(c, Person.class, stream(), arr);
+
+        assertEquals(arr.size(), 4);
+        assertEquals(arr.get(0).getFirstName(), "Jarda");
+        assertEquals(arr.get(1), null);
+        assertEquals(arr.get(2).getFirstName(), "Zdenek");
+        assertEquals(arr.get(3).getLastName(), "Tulachova");
+        assertEquals(arr.get(3).getSex(), Sex.FEMALE);
+        assertEquals(t.single, 0, "No extraction per element");
+        assertEquals(t.batch, 1, "One extraction for the whole array");
+    }
+
+    @Test public void arrayPropertyIsExtractedAtOnce() throws IOException {
+        Map<String,Object> people = new HashMap<String, Object>();
+        people.put("info", new Object[] {
+            person("Jarda", "Tulach", "MALE"),
+            person("Lenka", "Tulachova", "FEMALE"),
+        });
+        t.json = people;
+        People p = Models.parse(c, People.class, stream());
+
+        assertEquals(p.getInfo().size(), 2);
+        assertEquals(p.getInfo().get(0).getFirstName(), "Jarda");
+        assertEquals(p.getInfo().get(1).getSex(), Sex.FEMALE);
+        assertEquals(t.single, 1, "Only the People object is extracted alone");
+        assertEquals(t.batch, 1, "One extraction for the info array");
+    }
+
+    @Test public void bufferIsReturnedWhenConversionFails() throws IOException {
+        Map<String,Object> wrong = person("Jarda", "Tulach", "MALE");
+        wrong.put("firstName", 42);
+        t.json = wrong;
+        try {
+            Models.parse(c, Person.class, stream());
+            fail("Integer can't be used as a name");
+        } catch (ClassCastException ex) {
+            // OK
+        }
+        Object[] buffer = t.lastValues;
+
+        t.json = person("Jarda", "Tulach", "MALE");
+        Person p = Models.parse(c, Person.class, stream());
+        assertEquals(p.getFirstName(), "Jarda");
+        assertSame(t.lastValues, buffer, "The buffer has been released and reused");
+    }
+
+    private static Map<String,Object> person(String first, String last, String sex) {
+        Map<String,Object> m = new HashMap<String, Object>();
+        m.put("firstName", first);
+        m.put("lastName", last);
+        m.put("sex", sex);
+        return m;
+    }
+
+    private static InputStream stream() {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    private static final class MatrixTrans implements Transfer.BatchExtract {
+        Object json;
+        int single;
+        int batch;
+        Object[] lastValues;
+
+        @Override
+        public void extract(Object obj, String[] props, Object[] values) {
+            single++;
+            lastValues = values;
+            Map<?,?> map = obj instanceof Map ? (Map<?,?>) obj : null;
+            for (int i = 0; i < props.length; i++) {
+                values[i] = map == null ? null : map.get(props[i]);
+            }
+        }
+
+        @Override
+        public void extract(Object[] objs, String[] props, Object[] values) {
+            batch++;
+            assertEquals(values.length, objs.length * props.length);
+            for (int i = 0; i < objs.length; i++) {
+                Map<?,?> map = objs[i] instanceof Map ? (Map<?,?>) objs[i] : null;
+                for (int j = 0; j < props.length; j++) {
+                    values[i * props.length + j] = map == null ? null : map.get(props[j]);
+                }
+            }
+        }
+
+        @Override
+        public Object toJSON(InputStream is) throws IOException {
+            return json;
+        }
+
+        @Override
+        public void loadJSON(JSONCall call) {
+            call.notifyError(new UnsupportedOperationException());
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.util.Map;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.ComputedProperty;
+import net.java.html.json.Model;
+import net.java.html.json.Models;
+import net.java.html.json.Property;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.impl.DeepChangeTest.MapTechnology;
+import org.netbeans.html.json.impl.DeepChangeTest.One;
+import org.netbeans.html.json.spi.FunctionBinding;
+import org.netbeans.html.json.spi.PropertyBinding;
+import org.netbeans.html.json.spi.Technology;
+import org.netbeans.html.json.spi.Transfer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class BatchTest {
+    private BrwsrCtx c;
+
+    @BeforeMethod public void initTechnology() {
+        MapTechnology t = new MapTechnology();
+        c = Contexts.newBuilder().register(Technology.class, t, 1).
+            register(Transfer.class, t, 1).build();
+    }
+
+    @Model(className = "Row", properties = {
+        @Property(name = "name", type = String.class),
+        @Property(name = "count", type = int.class),
+        @Property(name = "values", type = String.class, array = true)
+    })
+    static class RowCntrl {
+        @ComputedProperty
+        static String label(String name, int count) {
+            return name + ":" + count;
+        }
+    }
+
+    @Test public void changesAreDeliveredOnceAtTheEnd() throws Exception {
+        final Row row = Models.bind(new Row(), c);
+        Map raw = (Map) Models.toRaw(row);
+        final One name = (One) raw.get("name");
+        final One count = (One) raw.get("count");
+        final One label = (One) raw.get("label");
+
+        Models.batch(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < 10; i++) {
+                    row.setName("n" + i);
+                    row.setCount(i);
+                }
+                assertEquals(name.changes, 0, "No notification yet");
+                assertEquals(count.changes, 0, "No notification yet");
+                assertEquals(label.changes, 0, "No notification yet");
+            }
+        });
+
+        assertEquals(name.changes, 1, "Name notified once");
+        assertEquals(count.changes, 1, "Count notified once");
+        assertEquals(label.changes, 1, "Label notified once");
+        assertEquals(label.get(), "n9:9", "Final value is visible");
+    }
+
+    @Test public void listChangesAreDeliveredOnce() throws Exception {
+        final Row row = Models.bind(new Row(), c);
+        Map raw = (Map) Models.toRaw(row);
+        final One values = (One) raw.get("values");
+
+        Models.batch(new Runnable() {
+            @Override
+            public void run() {
+                row.getValues().add("a");
+                row.getValues().add("b");
+                row.getValues().remove("a");
+                assertEquals(values.changes, 0, "No notification yet");
+            }
+        });
+
+        assertEquals(values.changes, 1, "List notified once");
+        assertEquals(row.getValues().size(), 1);
+    }
+
+    @Test public void nestedBatchesFlushWhenOutermostEnds() throws Exception {
+        final Row row = Models.bind(new Row(), c);
+        Map raw = (Map) Models.toRaw(row);
+        final One count = (One) raw.get("count");
+
+        Models.batch(new Runnable() {
+            @Override
+            public void run() {
+                row.setCount(1);
+                Models.batch(new Runnable() {
+                    @Override
+                    public void run() {
+                        row.setCount(2);
+                    }
+                });
+                assertEquals(count.changes, 0, "Inner batch doesn't deliver");
+                row.setCount(3);
+            }
+        });
+
+        assertEquals(count.changes, 1, "Notified once");
+        assertEquals(count.get(), 3);
+    }
+
+    @Test public void changesAreDeliveredEvenOnException() throws Exception {
+        final Row row = Models.bind(new Row(), c);
+        Map raw = (Map) Models.toRaw(row);
+        final One count = (One) raw.get("count");
+
+        try {
+            Models.batch(new Runnable() {
+                @Override
+                public void run() {
+                    row.setCount(5);
+                    throw new IllegalStateException("fail");
+                }
+            });
+            fail("Exception shall be propagated");
+        } catch (IllegalStateException ex) {
+            assertEquals(ex.getMessage(), "fail");
+        }
+
+        assertEquals(count.changes, 1, "Notified anyway");
+        assertEquals(row.getCount(), 5, "No rollback");
+
+        row.setCount(6);
+        assertEquals(count.changes, 2, "Regular notifications work again");
+    }
+
+    @Test public void failingListenerDoesNotStopOtherNotifications() throws Exception {
+        final FailingTechnology t = new FailingTechnology("name");
+        BrwsrCtx ctx = Contexts.newBuilder().register(Technology.class, t, 1).
+            register(Transfer.class, t.delegate, 1).build();
+        final Row first = Models.bind(new Row(), ctx);
+        final Row second = Models.bind(new Row(), ctx);
+        Map raw1 = (Map) Models.toRaw(first);
+        Map raw2 = (Map) Models.toRaw(second);
+        final One count1 = (One) raw1.get("count");
+        final One count2 = (One) raw2.get("count");
+        final One name2 = (One) raw2.get("name");
+
+        try {
+            Models.batch(new Runnable() {
+                @Override
+                public void run() {
+                    first.setName("x");
+                    first.setCount(1);
+                    second.setName("y");
+                    second.setCount(2);
+                }
+            });
+            fail("Failure of the listener shall be propagated");
+        } catch (IllegalStateException ex) {
+            assertEquals(ex.getMessage(), "Failing on name", "First failure reported");
+        }
+
+        assertEquals(t.failures, 2, "Both failing notifications attempted");
+        assertEquals(count1.changes, 1, "Count of the first model notified");
+        assertEquals(count2.changes, 1, "Count of the second model notified");
+        assertEquals(name2.changes, 0, "Failed notification isn't counted");
+    }
+
+    private static final class FailingTechnology
+    implements Technology<Map<String, One>> {
+        final MapTechnology delegate = new MapTechnology();
+        private final String failOn;
+        int failures;
+
+        FailingTechnology(String failOn) {
+            this.failOn = failOn;
+        }
+
+        @Override
+        public Map<String, One> wrapModel(Object model) {
+            return delegate.wrapModel(model);
+        }
+
+        @Override
+        public <M> M toModel(Class<M> modelClass, Object data) {
+            return delegate.toModel(modelClass, data);
+        }
+
+        @Override
+        public void bind(PropertyBinding b, Object model, Map<String, One> data) {
+            delegate.bind(b, model, data);
+        }
+
+        @Override
+        public void valueHasMutated(Map<String, One> data, String propertyName) {
+            if (propertyName.equals(failOn)) {
+                failures++;
+                throw new IllegalStateException("Failing on " + propertyName);
+            }
+            delegate.valueHasMutated(data, propertyName);
+        }
+
+        @Override
+        public void expose(FunctionBinding fb, Object model, Map<String, One> data) {
+            delegate.expose(fb, model, data);
+        }
+
+        @Override
+        public void applyBindings(Map<String, One> data) {
+        }
+
+        @Override
+        public Object wrapArray(Object[] arr) {
+            return arr;
+        }
+
+        @Override
+        public void runSafe(Runnable r) {
+            r.run();
+        }
+    }
+}
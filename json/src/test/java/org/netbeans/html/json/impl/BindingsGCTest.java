@@ -0,0 +1,153 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.Model;
+import net.java.html.json.Models;
+import net.java.html.json.Property;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.spi.FunctionBinding;
+import org.netbeans.html.json.spi.PropertyBinding;
+import org.netbeans.html.json.spi.Technology;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+/** Checks that technologies holding only {@link PropertyBinding#weak() weak}
+ * bindings don't prevent models from being garbage collected.
+ */
+public class BindingsGCTest {
+    @Model(className = "Collectable", properties = {
+        @Property(name = "name", type = String.class)
+    })
+    static class CollectableCntrl {
+    }
+
+    @Test public void boundModelCanBeCollected() throws Exception {
+        WeakTechnology t = new WeakTechnology();
+        BrwsrCtx c = Contexts.newBuilder().register(Technology.class, t, 1).build();
+
+        Collectable m = Models.bind(new Collectable("first"), c);
+        Models.applyBindings(m);
+        assertEquals(t.bindings.size(), 1, "One property bound");
+        PropertyBinding b = t.bindings.get(0);
+        assertEquals(b.getValue(), "first", "Value is read");
+
+        m.setName("second");
+        assertEquals(t.lastValue, "second", "Change delivered with new value");
+
+        Reference<Collectable> ref = new WeakReference<Collectable>(m);
+        m = null;
+        assertGC(ref);
+        assertNull(b.getValue(), "The binding no longer sees the model");
+    }
+
+    private static void assertGC(Reference<?> ref) throws InterruptedException {
+        for (int i = 0; i < 50; i++) {
+            if (ref.get() == null) {
+                return;
+            }
+            System.gc();
+            System.runFinalization();
+            List<byte[]> alloc = new ArrayList<byte[]>();
+            for (int j = 0; j < 10; j++) {
+                alloc.add(new byte[1024 * 1024]);
+            }
+            Thread.sleep(10);
+        }
+        fail("Object should be garbage collected: " + ref.get());
+    }
+
+    private static final class WeakTechnology
+    implements Technology<Object>, Technology.ValueMutated<Object> {
+        final List<PropertyBinding> bindings = new ArrayList<PropertyBinding>();
+        Object lastValue;
+
+        @Override
+        public Object wrapModel(Object model) {
+            return new Object();
+        }
+
+        @Override
+        public <M> M toModel(Class<M> modelClass, Object data) {
+            return null;
+        }
+
+        @Override
+        public void bind(PropertyBinding b, Object model, Object data) {
+            bindings.add(b.weak());
+        }
+
+        @Override
+        public void valueHasMutated(Object data, String propertyName) {
+            lastValue = null;
+        }
+
+        @Override
+        public void valueHasMutated(Object data, String propertyName, Object oldValue, Object newValue) {
+            lastValue = newValue;
+        }
+
+        @Override
+        public void expose(FunctionBinding fb, Object model, Object d) {
+        }
+
+        @Override
+        public void applyBindings(Object data) {
+        }
+
+        @Override
+        public Object wrapArray(Object[] arr) {
+            return arr;
+        }
+
+        @Override
+        public void runSafe(Runnable r) {
+            r.run();
+        }
+    }
+}
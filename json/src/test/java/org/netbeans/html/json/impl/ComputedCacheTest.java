@@ -0,0 +1,301 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.ComputedProperty;
+import net.java.html.json.Model;
+import net.java.html.json.Models;
+import net.java.html.json.Property;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.impl.DeepChangeTest.MapTechnology;
+import org.netbeans.html.json.impl.DeepChangeTest.One;
+import org.netbeans.html.json.spi.FunctionBinding;
+import org.netbeans.html.json.spi.PropertyBinding;
+import org.netbeans.html.json.spi.Technology;
+import org.netbeans.html.json.spi.Transfer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ComputedCacheTest {
+    private BrwsrCtx c;
+
+    @BeforeMethod public void initTechnology() {
+        MapTechnology t = new MapTechnology();
+        c = Contexts.newBuilder().register(Technology.class, t, 1).
+            register(Transfer.class, t, 1).build();
+        TotalCntrl.computed = 0;
+        HolderCntrl.computed = 0;
+    }
+
+    @Model(className = "Total", properties = {
+        @Property(name = "a", type = int.class),
+        @Property(name = "b", type = int.class),
+        @Property(name = "other", type = String.class),
+        @Property(name = "names", type = String.class, array = true)
+    })
+    static class TotalCntrl {
+        static int computed;
+
+        @ComputedProperty static int sum(int a, int b) {
+            computed++;
+            return a + b;
+        }
+
+        @ComputedProperty static int count(List<String> names) {
+            return names.size();
+        }
+    }
+
+    @Model(className = "Holder", properties = {
+        @Property(name = "total", type = Total.class)
+    })
+    static class HolderCntrl {
+        static int computed;
+
+        @ComputedProperty static int doubled(Total total) {
+            computed++;
+            return total == null ? 0 : total.getSum() * 2;
+        }
+    }
+
+    @Model(className = "Fragile", properties = {
+        @Property(name = "value", type = int.class)
+    })
+    static class FragileCntrl {
+        static int computed;
+        static boolean fail;
+
+        @ComputedProperty static int half(int value) {
+            computed++;
+            if (fail) {
+                throw new IllegalStateException("Failing on purpose");
+            }
+            return value / 2;
+        }
+    }
+
+    @Test public void failedComputationIsForgotten() {
+        Fragile f = Models.bind(new Fragile(10), c);
+        FragileCntrl.computed = 0;
+        FragileCntrl.fail = true;
+        try {
+            f.getHalf();
+            fail("Should throw an exception");
+        } catch (IllegalStateException ex) {
+            // OK
+        } finally {
+            FragileCntrl.fail = false;
+        }
+        assertEquals(f.getHalf(), 5, "Computed again after a failure");
+        assertEquals(f.getHalf(), 5, "And cached");
+        assertEquals(FragileCntrl.computed, 2, "One failed and one successful computation");
+
+        f.setValue(20);
+        assertEquals(f.getHalf(), 10, "Invalidated as usual");
+        assertEquals(FragileCntrl.computed, 3);
+    }
+
+    @Test public void valueIsComputedOnce() {
+        Total t = Models.bind(new Total(1, 2, "x"), c);
+        assertEquals(t.getSum(), 3);
+        assertEquals(t.getSum(), 3);
+        assertEquals(TotalCntrl.computed, 1, "Computed just once");
+
+        t.setOther("y");
+        assertEquals(t.getSum(), 3);
+        assertEquals(TotalCntrl.computed, 1, "Unrelated change doesn't recompute");
+
+        t.setA(10);
+        t.setB(20);
+        assertEquals(TotalCntrl.computed, 1, "Not recomputed until read");
+        assertEquals(t.getSum(), 30);
+        assertEquals(TotalCntrl.computed, 2, "Recomputed once");
+    }
+
+    @Test public void changesAreStillNotified() throws Exception {
+        Total t = Models.bind(new Total(1, 2, "x"), c);
+        Map raw = (Map) Models.toRaw(t);
+        One sum = (One) raw.get("sum");
+        assertEquals(sum.get(), 3);
+
+        t.setA(5);
+        sum.assertChange("Change of an argument is reported");
+        assertEquals(sum.get(), 7);
+    }
+
+    @Test public void listChangeInvalidates() {
+        Total t = Models.bind(new Total(), c);
+        assertEquals(t.getCount(), 0);
+        t.getNames().add("a");
+        t.getNames().add("b");
+        assertEquals(t.getCount(), 2);
+        t.getNames().remove(0);
+        assertEquals(t.getCount(), 1);
+    }
+
+    @Test public void dependenciesAreKnownStatically() throws Exception {
+        Total t = Models.bind(new Total(), c);
+        Map raw = (Map) Models.toRaw(t);
+        One sum = (One) raw.get("sum");
+        One count = (One) raw.get("count");
+
+        t.setB(3);
+        sum.assertChange("Sum depends on b");
+        count.assertNoChange("Count doesn't depend on b");
+
+        t.getNames().add("x");
+        count.assertChange("Count depends on names");
+        sum.assertNoChange("Sum doesn't depend on names");
+        assertEquals(count.get(), 1);
+    }
+
+    @Test public void transitiveChangeInvalidates() throws Exception {
+        Holder h = Models.bind(new Holder(new Total(1, 2, "x")), c);
+        Total t = h.getTotal();
+        Map raw = (Map) Models.toRaw(h);
+        One doubled = (One) raw.get("doubled");
+        assertEquals(h.getDoubled(), 6);
+        assertEquals(h.getDoubled(), 6);
+        assertEquals(HolderCntrl.computed, 1, "Computed just once");
+
+        t.setA(4);
+        doubled.assertChange("Change of nested model is reported");
+        assertEquals(h.getDoubled(), 12);
+        assertEquals(HolderCntrl.computed, 2, "Recomputed after change");
+
+        t.setOther("y");
+        assertEquals(h.getDoubled(), 12);
+        assertEquals(HolderCntrl.computed, 2, "Unrelated change doesn't recompute");
+    }
+
+    @Test public void changeInBatchInvalidatesImmediately() {
+        final Holder h = Models.bind(new Holder(new Total(1, 2, "x")), c);
+        final Total t = h.getTotal();
+        assertEquals(h.getDoubled(), 6);
+        Models.batch(new Runnable() {
+            @Override
+            public void run() {
+                t.setA(4);
+                assertEquals(t.getSum(), 6);
+                assertEquals(h.getDoubled(), 12);
+            }
+        });
+    }
+
+    @Test public void dependencyWriteDoesNotComputeEagerly() {
+        Pushes p = new Pushes();
+        BrwsrCtx ctx = Contexts.newBuilder().register(Technology.class, p, 1).build();
+        Total t = Models.bind(new Total(1, 2, "x"), ctx);
+        Models.applyBindings(t);
+        assertEquals(p.bindings.get("sum").getValue(), 3);
+        assertEquals(TotalCntrl.computed, 1, "Computed once when read");
+
+        t.setA(5);
+        t.setB(6);
+        t.getNames().add("x");
+        assertEquals(TotalCntrl.computed, 1, "Writes to dependencies don't compute sum");
+        assertEquals(p.log.toString(), "[a=5, sum=null, b=6, sum=null, names=[x], count=null]",
+            "Values known to setters are pushed, derived ones only invalidated");
+
+        assertEquals(p.bindings.get("sum").getValue(), 11);
+        assertEquals(TotalCntrl.computed, 2, "Computed again when read");
+    }
+
+    private static final class Pushes implements Technology.ValueMutated<Object> {
+        final Map<String, PropertyBinding> bindings = new HashMap<String, PropertyBinding>();
+        final List<String> log = new ArrayList<String>();
+
+        @Override
+        public void valueHasMutated(Object data, String propertyName, Object oldValue, Object newValue) {
+            if (newValue instanceof Object[]) {
+                newValue = java.util.Arrays.toString((Object[]) newValue);
+            }
+            log.add(propertyName + "=" + newValue);
+        }
+
+        @Override
+        public Object wrapModel(Object model) {
+            return this;
+        }
+
+        @Override
+        public <M> M toModel(Class<M> modelClass, Object data) {
+            return modelClass.cast(data);
+        }
+
+        @Override
+        public void bind(PropertyBinding b, Object model, Object data) {
+            bindings.put(b.getPropertyName(), b);
+        }
+
+        @Override
+        public void valueHasMutated(Object data, String propertyName) {
+            valueHasMutated(data, propertyName, null, null);
+        }
+
+        @Override
+        public void expose(FunctionBinding fb, Object model, Object d) {
+        }
+
+        @Override
+        public void applyBindings(Object data) {
+        }
+
+        @Override
+        public Object wrapArray(Object[] arr) {
+            return arr;
+        }
+
+        @Override
+        public void runSafe(Runnable r) {
+            r.run();
+        }
+    }
+}
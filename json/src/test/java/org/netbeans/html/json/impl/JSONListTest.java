@@ -42,7 +42,9 @@
  */
 package org.netbeans.html.json.impl;
 
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -132,6 +134,29 @@ public class JSONListTest implements Technology<Object> {
         assertEquals(arr[1], "Two", "2nd text in the model");
     }
     
+    @Test public void unchangedArrayIsNotConvertedAgain() {
+        BrwsrCtx c = Contexts.newBuilder().register(Technology.class, this, 1).build();
+
+        People people = Models.bind(new People(), c).applyBindings();
+        people.getNicknames().add("One");
+        people.getNicknames().add("Two");
+
+        PropertyBinding pb = bindings.get("nicknames");
+        Object first = pb.getValue();
+        assertSame(pb.getValue(), first, "Nothing changed, same array");
+
+        people.getNicknames().set(1, "Three");
+        Object[] second = (Object[]) pb.getValue();
+        assertNotSame(second, first, "Element replaced, new array");
+        assertEquals(second[1], "Three");
+        assertSame(pb.getValue(), second, "Cached again");
+
+        people.getNicknames().remove(0);
+        Object[] third = (Object[]) pb.getValue();
+        assertEquals(third.length, 1, "Element removed");
+        assertEquals(third[0], "Three");
+    }
+
     @Test public void testConvertorOnAnArrayWithWrapper() {
         this.replaceArray = true;
         BrwsrCtx c = Contexts.newBuilder().register(Technology.class, this, 1).build();
@@ -188,6 +213,170 @@ public class JSONListTest implements Technology<Object> {
         assertEquals(sum(p.getAge()), 42);
     }
 
+    @Test public void modificationsAreReportedAsSplices() {
+        Splices t = new Splices();
+        BrwsrCtx c = Contexts.newBuilder().register(Technology.class, t, 1).build();
+
+        People p = Models.bind(new People(), c).applyBindings();
+        List<String> names = p.getNicknames();
+        names.add("One");
+        names.add("Two");
+        names.add(1, "Three");
+        names.set(0, "Four");
+        names.remove("Two");
+        names.remove(0);
+        names.addAll(Arrays.asList("Five", "Six"));
+        names.subList(1, 3).clear();
+        names.clear();
+
+        assertEquals(t.log, Arrays.asList(
+            "nicknames 0 0 [One]",
+            "nicknames 1 0 [Two]",
+            "nicknames 1 0 [Three]",
+            "nicknames 0 1 [Four]",
+            "nicknames 2 1 []",
+            "nicknames 0 1 []",
+            "nicknames 1 0 [Five, Six]",
+            "nicknames 1 2 []",
+            "nicknames 0 1 []"
+        ));
+        assertTrue(t.changed.isEmpty(), "No full refresh: " + t.changed);
+    }
+
+    @Test public void bulkModificationsRefreshWholeList() {
+        Splices t = new Splices();
+        BrwsrCtx c = Contexts.newBuilder().register(Technology.class, t, 1).build();
+
+        People p = Models.bind(new People(), c).applyBindings();
+        List<String> names = p.getNicknames();
+        names.add("One");
+        names.add("Two");
+        names.removeAll(Arrays.asList("One"));
+
+        assertEquals(t.log.size(), 2, "Two splices: " + t.log);
+        assertEquals(t.changed, Arrays.asList("nicknames"), "One full refresh");
+    }
+
+    @Test public void replaceReportsOnlyDifferences() {
+        Splices t = new Splices();
+        BrwsrCtx c = Contexts.newBuilder().register(Technology.class, t, 1).build();
+
+        People p = Models.bind(new People(), c).applyBindings();
+        JSONList<String> names = (JSONList<String>) p.getNicknames();
+        names.addAll(Arrays.asList("a", "b", "c", "d", "e"));
+        t.log.clear();
+
+        names.fastReplace(Arrays.asList("a", "c", "x", "d", "e"));
+        assertEquals(names, Arrays.asList("a", "c", "x", "d", "e"));
+        assertEquals(t.log, Arrays.asList(
+            "nicknames 1 1 []",
+            "nicknames 2 0 [x]"
+        ));
+        t.log.clear();
+
+        names.fastReplace(Arrays.asList("a", "c", "x", "d", "e"));
+        assertTrue(t.log.isEmpty(), "No change: " + t.log);
+
+        names.fastReplace(Arrays.asList("e", "a", "c", "x", "d"));
+        assertEquals(t.log, Arrays.asList(
+            "nicknames 0 0 [e]",
+            "nicknames 5 1 []"
+        ));
+        assertTrue(t.changed.isEmpty(), "No full refresh: " + t.changed);
+    }
+
+    @Test public void primitiveListKeepsValuesUnboxed() {
+        Splices t = new Splices();
+        BrwsrCtx c = Contexts.newBuilder().register(Technology.class, t, 1).build();
+
+        People p = Models.bind(new People(), c).applyBindings();
+        assertTrue(p.getAge() instanceof JSONList.Ints, "Specialized list: " + p.getAge().getClass());
+        List<Integer> ages = p.getAge();
+
+        Models.setAll(ages, new int[] { 10, 20, 30 });
+        assertEquals(p.getAge(), Arrays.asList(10, 20, 30));
+        ages.add(40);
+        ages.remove(Integer.valueOf(20));
+        assertTrue(Arrays.equals(Models.toIntArray(ages), new int[] { 10, 30, 40 }), Arrays.toString(Models.toIntArray(ages)));
+
+        Models.setAll(ages, new int[] { 10, 35, 40 });
+        assertEquals(t.log, Arrays.asList(
+            "age 0 0 [10, 20, 30]",
+            "age 3 0 [40]",
+            "age 1 1 []",
+            "age 1 1 [35]"
+        ));
+
+        ages.add(null);
+        assertEquals(ages.size(), 4, "null is stored");
+        assertEquals(ages.get(3), Integer.valueOf(0), "as zero");
+        ages.set(0, null);
+        assertEquals(ages.get(0), Integer.valueOf(0), "set to zero");
+    }
+
+    @Test public void nullsInPrimitiveListsAreZeros() throws Exception {
+        People p = Models.bind(new People(), BrwsrCtx.EMPTY);
+        p.getAge().addAll(Arrays.asList(1, null, 3));
+        assertTrue(Arrays.equals(Models.toIntArray(p.getAge()), new int[] { 1, 0, 3 }));
+
+        People read = Models.read(BrwsrCtx.EMPTY, People.class, new StringReader("{\"age\":[1,null]}"));
+        assertTrue(Arrays.equals(Models.toIntArray(read.getAge()), new int[] { 1, 0 }), "Streamed null is zero");
+
+        List<Boolean> flags = new ArrayList<Boolean>(Arrays.asList(true, null));
+        assertTrue(Arrays.equals(Models.toBooleanArray(flags), new boolean[] { true, false }), "Plain lists are converted too");
+
+        List<Double> plain = new ArrayList<Double>();
+        Models.setAll(plain, new double[] { 1.5, 2.5 });
+        assertEquals(plain, Arrays.asList(1.5, 2.5));
+    }
+
+    private static final class Splices implements Technology.ArrayMutated<Object> {
+        final List<String> log = new ArrayList<String>();
+        final List<String> changed = new ArrayList<String>();
+
+        @Override
+        public void arrayMutated(Object data, String propertyName, int index, int removed, Object[] inserted) {
+            log.add(propertyName + " " + index + " " + removed + " " + Arrays.toString(inserted));
+        }
+
+        @Override
+        public Object wrapModel(Object model) {
+            return this;
+        }
+
+        @Override
+        public <M> M toModel(Class<M> modelClass, Object data) {
+            return modelClass.cast(data);
+        }
+
+        @Override
+        public void bind(PropertyBinding b, Object model, Object data) {
+        }
+
+        @Override
+        public void valueHasMutated(Object data, String propertyName) {
+            changed.add(propertyName);
+        }
+
+        @Override
+        public void expose(FunctionBinding fb, Object model, Object d) {
+        }
+
+        @Override
+        public void applyBindings(Object data) {
+        }
+
+        @Override
+        public Object wrapArray(Object[] arr) {
+            return arr;
+        }
+
+        @Override
+        public void runSafe(Runnable r) {
+            r.run();
+        }
+    }
+
     private static int sum(List<Integer> arr) {
         int sum = 0;
         for (Integer i : arr) {
@@ -0,0 +1,183 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.Model;
+import net.java.html.json.Models;
+import net.java.html.json.Property;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.impl.DeepChangeTest.MapTechnology;
+import org.netbeans.html.json.spi.Technology;
+import org.netbeans.html.json.spi.Transfer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class KeyIndexTest {
+    private BrwsrCtx c;
+
+    @BeforeMethod public void initTechnology() {
+        MapTechnology t = new MapTechnology();
+        c = Contexts.newBuilder().register(Technology.class, t, 1).
+            register(Transfer.class, t, 1).build();
+    }
+
+    @Model(className = "Line", properties = {
+        @Property(name = "id", type = String.class),
+        @Property(name = "value", type = int.class)
+    })
+    static class LineCntrl {
+    }
+
+    @Model(className = "Sheet", properties = {
+        @Property(name = "lines", type = Line.class, array = true, key = "id")
+    })
+    static class SheetCntrl {
+    }
+
+    @Test public void findLinesById() {
+        Sheet sheet = Models.bind(new Sheet(), c);
+        Line a = new Line("a", 1);
+        Line b = new Line("b", 2);
+        sheet.getLines().add(a);
+        sheet.getLines().add(b);
+
+        assertSame(sheet.findLinesById("a"), a);
+        assertSame(sheet.findLinesById("b"), b);
+        assertNull(sheet.findLinesById("c"));
+
+        Line c = new Line("c", 3);
+        sheet.getLines().add(0, c);
+        assertSame(sheet.findLinesById("c"), c, "Added element found");
+
+        sheet.getLines().remove(a);
+        assertNull(sheet.findLinesById("a"), "Removed element isn't found");
+
+        sheet.getLines().set(0, new Line("d", 4));
+        assertNull(sheet.findLinesById("c"), "Replaced element isn't found");
+        assertEquals(sheet.findLinesById("d").getValue(), 4);
+
+        sheet.getLines().clear();
+        assertNull(sheet.findLinesById("b"), "Cleared");
+    }
+
+    @Test public void keyChangeIsReflected() {
+        Sheet sheet = Models.bind(new Sheet(), c);
+        Line a = new Line("a", 1);
+        sheet.getLines().add(a);
+        sheet.getLines().add(new Line("b", 2));
+        assertSame(sheet.findLinesById("a"), a);
+
+        a.setId("z");
+        assertNull(sheet.findLinesById("a"), "Old key is gone");
+        assertSame(sheet.findLinesById("z"), a, "New key found");
+
+        a.setValue(10);
+        assertSame(sheet.findLinesById("z"), a, "Other properties don't matter");
+    }
+
+    @Test public void keyChangeIsReflectedBeforeNotificationsAreDelivered() {
+        final List<Runnable> pending = new ArrayList<Runnable>();
+        MapTechnology t = new MapTechnology();
+        BrwsrCtx async = Contexts.newBuilder().register(Technology.class, t, 1).
+            register(Transfer.class, t, 1).register(Executor.class, new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    pending.add(command);
+                }
+            }, 1).build();
+        Sheet sheet = Models.bind(new Sheet(), async);
+        Line a = Models.bind(new Line("a", 1), async);
+        sheet.getLines().add(a);
+        assertSame(sheet.findLinesById("a"), a);
+
+        a.setId("z");
+        assertNull(sheet.findLinesById("a"), "Old key is gone immediately");
+        assertSame(sheet.findLinesById("z"), a, "New key found immediately");
+
+        for (int i = 0; i < pending.size(); i++) {
+            pending.get(i).run();
+        }
+        assertNull(sheet.findLinesById("a"), "Still gone");
+        assertSame(sheet.findLinesById("z"), a, "Still found");
+    }
+
+    @Test public void duplicateKeys() {
+        Sheet sheet = Models.bind(new Sheet(), c);
+        Line a1 = new Line("a", 1);
+        Line a2 = new Line("a", 2);
+        sheet.getLines().add(a1);
+        sheet.getLines().add(a2);
+
+        Line found = sheet.findLinesById("a");
+        sheet.getLines().remove(found);
+        Line other = found == a1 ? a2 : a1;
+        assertSame(sheet.findLinesById("a"), other, "The other duplicate is found");
+    }
+
+    @Test public void onlyElementsOfTheListAreWatched() {
+        Sheet first = Models.bind(new Sheet(), c);
+        Sheet second = Models.bind(new Sheet(), c);
+        Line a = new Line("a", 1);
+        first.getLines().add(a);
+        second.getLines().add(a);
+        assertSame(first.findLinesById("a"), a);
+        assertSame(second.findLinesById("a"), a);
+
+        a.setId("b");
+        assertSame(first.findLinesById("b"), a, "Key change seen by first list");
+        assertSame(second.findLinesById("b"), a, "Key change seen by second list");
+
+        second.getLines().remove(a);
+        a.setId("c");
+        assertSame(first.findLinesById("c"), a, "Still indexed in first list");
+        assertNull(second.findLinesById("c"), "Removed element isn't tracked");
+        assertNull(second.findLinesById("b"), "Removed element isn't found");
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.io.Closeable;
+import java.util.Comparator;
+import java.util.List;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.Model;
+import net.java.html.json.Models;
+import net.java.html.json.Property;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.impl.DeepChangeTest.MapTechnology;
+import org.netbeans.html.json.spi.Technology;
+import org.netbeans.html.json.spi.Transfer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LiveViewTest {
+    private static final Models.Filter<Task> OPEN = new Models.Filter<Task>() {
+        @Override
+        public boolean accept(Task t) {
+            return !t.isDone();
+        }
+    };
+    private static final Comparator<Task> BY_PRIORITY = new Comparator<Task>() {
+        @Override
+        public int compare(Task t1, Task t2) {
+            return t1.getPriority() - t2.getPriority();
+        }
+    };
+    private BrwsrCtx c;
+
+    @BeforeMethod public void initTechnology() {
+        MapTechnology t = new MapTechnology();
+        c = Contexts.newBuilder().register(Technology.class, t, 1).
+            register(Transfer.class, t, 1).build();
+    }
+
+    @Model(className = "Task", properties = {
+        @Property(name = "name", type = String.class),
+        @Property(name = "priority", type = int.class),
+        @Property(name = "done", type = boolean.class)
+    })
+    static class TaskCntrl {
+    }
+
+    @Model(className = "Tasks", properties = {
+        @Property(name = "all", type = Task.class, array = true),
+        @Property(name = "open", type = Task.class, array = true)
+    })
+    static class TasksCntrl {
+    }
+
+    @Test public void viewFollowsTheList() {
+        Tasks tasks = Models.bind(new Tasks(), c);
+        tasks.getAll().add(new Task("b", 2, false));
+        tasks.getAll().add(new Task("x", 1, true));
+        Models.view(tasks.getAll(), tasks.getOpen(), OPEN, BY_PRIORITY);
+        assertNames(tasks.getOpen(), "b");
+
+        tasks.getAll().add(new Task("a", 1, false));
+        tasks.getAll().add(new Task("c", 3, false));
+        tasks.getAll().add(new Task("y", 0, true));
+        assertNames(tasks.getOpen(), "a", "b", "c");
+
+        tasks.getAll().remove(0);
+        assertNames(tasks.getOpen(), "a", "c");
+
+        tasks.getAll().set(0, new Task("d", 2, false));
+        assertNames(tasks.getOpen(), "a", "d", "c");
+
+        tasks.getAll().clear();
+        assertNames(tasks.getOpen());
+    }
+
+    @Test public void elementChangesAreReflected() {
+        Tasks tasks = Models.bind(new Tasks(), c);
+        Task a = new Task("a", 1, false);
+        Task b = new Task("b", 2, false);
+        Task c = new Task("c", 3, false);
+        tasks.getAll().add(a);
+        tasks.getAll().add(b);
+        tasks.getAll().add(c);
+        Models.view(tasks.getAll(), tasks.getOpen(), OPEN, BY_PRIORITY);
+        assertNames(tasks.getOpen(), "a", "b", "c");
+
+        a.setPriority(5);
+        assertNames(tasks.getOpen(), "b", "c", "a");
+
+        b.setDone(true);
+        assertNames(tasks.getOpen(), "c", "a");
+
+        b.setDone(false);
+        assertNames(tasks.getOpen(), "b", "c", "a");
+
+        tasks.getAll().remove(b);
+        b.setDone(true);
+        b.setDone(false);
+        assertNames(tasks.getOpen(), "c", "a");
+    }
+
+    @Test public void equalKeysAreRemovedByIdentity() {
+        Tasks tasks = Models.bind(new Tasks(), c);
+        Task a = new Task("a", 1, false);
+        Task b = new Task("b", 1, false);
+        Task c = new Task("c", 1, false);
+        tasks.getAll().add(a);
+        tasks.getAll().add(b);
+        tasks.getAll().add(c);
+        Models.view(tasks.getAll(), tasks.getOpen(), OPEN, BY_PRIORITY);
+        assertNames(tasks.getOpen(), "a", "b", "c");
+
+        tasks.getAll().remove(b);
+        assertNames(tasks.getOpen(), "a", "c");
+
+        c.setName("d");
+        assertNames(tasks.getOpen(), "a", "d");
+
+        a.setDone(true);
+        assertNames(tasks.getOpen(), "d");
+    }
+
+    @Test public void closedViewIsNotUpdated() throws Exception {
+        Tasks tasks = Models.bind(new Tasks(), c);
+        Task a = new Task("a", 1, false);
+        tasks.getAll().add(a);
+        Closeable view = Models.view(tasks.getAll(), tasks.getOpen(), OPEN, BY_PRIORITY);
+        assertNames(tasks.getOpen(), "a");
+
+        view.close();
+        tasks.getAll().add(new Task("b", 2, false));
+        a.setDone(true);
+        assertNames(tasks.getOpen(), "a");
+
+        tasks.getAll().clear();
+        assertNames(tasks.getOpen(), "a");
+    }
+
+    @Test public void sourceMustBeArrayProperty() {
+        Tasks tasks = Models.bind(new Tasks(), c);
+        try {
+            Models.view(new java.util.ArrayList<Task>(), tasks.getOpen(), OPEN, BY_PRIORITY);
+            fail("Should throw an exception");
+        } catch (IllegalArgumentException ex) {
+            // OK
+        }
+    }
+
+    private static void assertNames(List<Task> list, String... names) {
+        StringBuilder sb = new StringBuilder();
+        for (Task t : list) {
+            sb.append(t.getName());
+        }
+        StringBuilder exp = new StringBuilder();
+        for (String n : names) {
+            exp.append(n);
+        }
+        assertEquals(sb.toString(), exp.toString());
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import net.java.html.json.Model;
+import net.java.html.json.Models;
+import net.java.html.json.Property;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import org.testng.annotations.Test;
+
+public class ModelTypesTest {
+    @Model(className = "Counted", instance = true, properties = {
+        @Property(name = "value", type = int.class)
+    })
+    static final class CountedCntrl {
+        static int created;
+
+        CountedCntrl() {
+            created++;
+        }
+    }
+
+    @Model(className = "Parallel", properties = {
+        @Property(name = "value", type = String.class)
+    })
+    static final class ParallelCntrl {
+    }
+
+    @Test public void registrationDoesNotInstantiate() {
+        assertEquals(CountedCntrl.created, 0, "No instance yet");
+        assertTrue(Models.isModel(Counted.class), "Counted is a model");
+        assertEquals(CountedCntrl.created, 0, "Still no instance created");
+    }
+
+    @Test public void nonModelsAreRecognized() {
+        assertFalse(Models.isModel(CountedCntrl.class), "Controller isn't model");
+        assertFalse(Models.isModel(int.class), "Primitive isn't model");
+        assertFalse(Models.isModel(Object[].class), "Array isn't model");
+    }
+
+    @Test public void findTypeInParallel() throws Exception {
+        final int cnt = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService exec = Executors.newFixedThreadPool(cnt);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < cnt; i++) {
+                results.add(exec.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        start.await();
+                        return JSON.findType(Parallel.class) != null;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> f : results) {
+                assertTrue(f.get(), "Type found in every thread");
+            }
+        } finally {
+            exec.shutdown();
+        }
+        assertEquals(JSON.findType(Parallel.class), JSON.findType(Parallel.class), "Always the same type");
+    }
+}
@@ -80,6 +80,60 @@ public class ParallelChangeTest {
         doTest(false);
     }
 
+    @Test
+    public void accessFromOtherThreadIsNotDependency() throws Exception {
+        final Observed mine = Models.bind(new Observed(1), c);
+        final Observed other = Models.bind(new Observed(2), c);
+        final Watching watching = Models.bind(new Watching(), c);
+        watching.setObserved(mine);
+
+        final CountDownLatch computing = new CountDownLatch(1);
+        final CountDownLatch accessed = new CountDownLatch(1);
+        ExecutorService exec = Executors.newSingleThreadExecutor();
+        try {
+            WatchingCntrl.whileComputing = new Runnable() {
+                @Override
+                public void run() {
+                    computing.countDown();
+                    try {
+                        accessed.await();
+                    } catch (InterruptedException ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                }
+            };
+            exec.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        computing.await();
+                        assertEquals(other.getValue(), 2, "Other value read");
+                    } catch (InterruptedException ex) {
+                        throw new IllegalStateException(ex);
+                    } finally {
+                        accessed.countDown();
+                    }
+                }
+            });
+            Map raw = (Map) Models.toRaw(watching);
+            One doubled = (One) raw.get("doubled");
+            assertEquals(doubled.get(), 2, "Computed while other thread accessed other model");
+        } finally {
+            WatchingCntrl.whileComputing = null;
+            exec.shutdown();
+        }
+        Map raw = (Map) Models.toRaw(watching);
+        One doubled = (One) raw.get("doubled");
+        doubled.changes = 0;
+
+        other.setValue(20);
+        doubled.assertNoChange("Access from other thread isn't tracked");
+
+        mine.setValue(10);
+        doubled.assertChange("Own dependency is tracked");
+        assertEquals(watching.getDoubled(), 20);
+    }
+
     private void doTest(boolean multipleValues) throws InterruptedException {
         class Test implements Runnable {
             final int offset;
@@ -196,4 +250,26 @@ public class ParallelChangeTest {
         }
     }
 
+    @Model(className = "Observed", properties = {
+        @Property(name = "value", type = int.class)
+    })
+    static class ObservedCntrl {
+    }
+
+    @Model(className = "Watching", properties = {
+        @Property(name = "observed", type = Observed.class)
+    })
+    static class WatchingCntrl {
+        static Runnable whileComputing;
+
+        @ComputedProperty
+        static int doubled(Observed observed) {
+            Runnable r = whileComputing;
+            if (r != null) {
+                r.run();
+            }
+            return observed.getValue() * 2;
+        }
+    }
+
 }
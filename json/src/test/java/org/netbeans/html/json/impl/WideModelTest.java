@@ -0,0 +1,175 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.json.impl;
+
+import java.util.Map;
+import net.java.html.BrwsrCtx;
+import net.java.html.json.ComputedProperty;
+import net.java.html.json.Model;
+import net.java.html.json.Models;
+import net.java.html.json.Property;
+import org.netbeans.html.context.spi.Contexts;
+import org.netbeans.html.json.impl.DeepChangeTest.MapTechnology;
+import org.netbeans.html.json.impl.DeepChangeTest.One;
+import org.netbeans.html.json.spi.Technology;
+import org.netbeans.html.json.spi.Transfer;
+import static org.testng.Assert.assertEquals;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+@Model(className = "Wide", properties = {
+    @Property(name = "p0", type = int.class),
+    @Property(name = "p1", type = int.class),
+    @Property(name = "p2", type = int.class),
+    @Property(name = "p3", type = int.class),
+    @Property(name = "p4", type = int.class),
+    @Property(name = "p5", type = int.class),
+    @Property(name = "p6", type = int.class),
+    @Property(name = "p7", type = int.class),
+    @Property(name = "p8", type = int.class),
+    @Property(name = "p9", type = int.class),
+    @Property(name = "p10", type = int.class),
+    @Property(name = "p11", type = int.class),
+    @Property(name = "p12", type = int.class),
+    @Property(name = "p13", type = int.class),
+    @Property(name = "p14", type = int.class),
+    @Property(name = "p15", type = int.class),
+    @Property(name = "p16", type = int.class),
+    @Property(name = "p17", type = int.class),
+    @Property(name = "p18", type = int.class),
+    @Property(name = "p19", type = int.class),
+    @Property(name = "p20", type = int.class),
+    @Property(name = "p21", type = int.class),
+    @Property(name = "p22", type = int.class),
+    @Property(name = "p23", type = int.class),
+    @Property(name = "p24", type = int.class),
+    @Property(name = "p25", type = int.class),
+    @Property(name = "p26", type = int.class),
+    @Property(name = "p27", type = int.class),
+    @Property(name = "p28", type = int.class),
+    @Property(name = "p29", type = int.class),
+    @Property(name = "p30", type = int.class),
+    @Property(name = "p31", type = int.class),
+    @Property(name = "p32", type = int.class),
+    @Property(name = "p33", type = int.class),
+    @Property(name = "p34", type = int.class),
+    @Property(name = "p35", type = int.class),
+    @Property(name = "p36", type = int.class),
+    @Property(name = "p37", type = int.class),
+    @Property(name = "p38", type = int.class),
+    @Property(name = "p39", type = int.class),
+    @Property(name = "p40", type = int.class),
+    @Property(name = "p41", type = int.class),
+    @Property(name = "p42", type = int.class),
+    @Property(name = "p43", type = int.class),
+    @Property(name = "p44", type = int.class),
+    @Property(name = "p45", type = int.class),
+    @Property(name = "p46", type = int.class),
+    @Property(name = "p47", type = int.class),
+    @Property(name = "p48", type = int.class),
+    @Property(name = "p49", type = int.class),
+    @Property(name = "p50", type = int.class),
+    @Property(name = "p51", type = int.class),
+    @Property(name = "p52", type = int.class),
+    @Property(name = "p53", type = int.class),
+    @Property(name = "p54", type = int.class),
+    @Property(name = "p55", type = int.class),
+    @Property(name = "p56", type = int.class),
+    @Property(name = "p57", type = int.class),
+    @Property(name = "p58", type = int.class),
+    @Property(name = "p59", type = int.class),
+    @Property(name = "p60", type = int.class),
+    @Property(name = "p61", type = int.class),
+    @Property(name = "p62", type = int.class),
+    @Property(name = "p63", type = int.class),
+    @Property(name = "p64", type = int.class),
+    @Property(name = "p65", type = int.class),
+    @Property(name = "p66", type = int.class),
+    @Property(name = "p67", type = int.class),
+    @Property(name = "p68", type = int.class),
+    @Property(name = "p69", type = int.class)
+})
+public class WideModelTest {
+    private BrwsrCtx c;
+
+    @BeforeMethod public void initTechnology() {
+        MapTechnology t = new MapTechnology();
+        c = Contexts.newBuilder().register(Technology.class, t, 1).
+            register(Transfer.class, t, 1).build();
+    }
+
+    @Model(className = "WideHolder", properties = {
+        @Property(name = "wide", type = Wide.class)
+    })
+    static class WideHolderCntrl {
+        @ComputedProperty
+        static int firstAndLast(Wide wide) {
+            return wide.getP1() + wide.getP69();
+        }
+    }
+
+    @Test public void dependenciesBeyondSixtyFourProperties() throws Exception {
+        Wide wide = Models.bind(new Wide(), c);
+        WideHolder holder = Models.bind(new WideHolder(), c);
+        holder.setWide(wide);
+
+        Map raw = (Map) Models.toRaw(holder);
+        One both = (One) raw.get("firstAndLast");
+        assertEquals(both.get(), 0, "Nothing set yet");
+        both.changes = 0;
+
+        wide.setP30(30);
+        both.assertNoChange("p30 isn't accessed");
+
+        wide.setP69(69);
+        both.assertChange("p69 is a dependency");
+        assertEquals(both.get(), 69);
+
+        wide.setP1(1);
+        both.assertChange("p1 is a dependency");
+        assertEquals(both.get(), 70);
+
+        wide.setP65(65);
+        both.assertNoChange("p65 isn't accessed");
+    }
+}
@@ -42,6 +42,7 @@
  */
 package org.netbeans.html.wstyrus;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -157,16 +158,7 @@ final class LoadJSON implements Runnable {
                 obj = arrayOrString[0] ? new JSONArray(tok) : new JSONObject(tok);
                 json = convertToArray(obj);
             } catch (JSONException ex) {
-                Reader r = new InputStreamReader(is, "UTF-8");
-                StringBuilder sb = new StringBuilder();
-                for (;;) {
-                    int ch = r.read();
-                    if (ch == -1) {
-                        break;
-                    }
-                    sb.append((char)ch);
-                }
-                json = sb.toString();
+                json = readText(new InputStreamReader(is, "UTF-8"));
             }
         } catch (IOException ex) {
             error = ex;
@@ -208,20 +200,24 @@ final class LoadJSON implements Runnable {
     }
 
     private static JSONTokener createTokener(InputStream is) throws IOException {
-        Reader r = new InputStreamReader(is, "UTF-8");
+        Reader r = new BufferedReader(new InputStreamReader(is, "UTF-8"));
         try {
             return new JSONTokener(r);
         } catch (LinkageError ex) {
             // phones may carry outdated version of JSONTokener
-            StringBuilder sb = new StringBuilder();
-            for (;;) {
-                int ch = r.read();
-                if (ch == -1) {
-                    break;
-                }
-                sb.append((char)ch);
+            return new JSONTokener(readText(r));
+        }
+    }
+
+    private static String readText(Reader r) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] arr = new char[4096];
+        for (;;) {
+            int len = r.read(arr);
+            if (len == -1) {
+                return sb.toString();
             }
-            return new JSONTokener(sb.toString());
+            sb.append(arr, 0, len);
         }
     }
 
@@ -275,6 +271,14 @@ final class LoadJSON implements Runnable {
         }
     }
 
+    public static void extractJSON(Object[] objs, String[] props, Object[] values) {
+        Object[] row = new Object[props.length];
+        for (int i = 0; i < objs.length; i++) {
+            extractJSON(objs[i], props, row);
+            System.arraycopy(row, 0, values, i * props.length, props.length);
+        }
+    }
+
     @JavaScriptBody(args = {"object", "property"}, body =
         "var ret;\n" + 
         "if (property === null) ret = object;\n" + 
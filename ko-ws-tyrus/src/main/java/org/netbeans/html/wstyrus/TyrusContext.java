@@ -85,7 +85,7 @@ import org.openide.util.lookup.ServiceProvider;
 @Contexts.Id("tyrus")
 @ServiceProvider(service = Contexts.Provider.class)
 public final class TyrusContext 
-implements Contexts.Provider, WSTransfer<Comm>, Transfer {
+implements Contexts.Provider, WSTransfer<Comm>, Transfer.BatchExtract {
     @Override
     public void fillContext(Contexts.Builder context, Class<?> requestor) {
         // default WebSocket transfer implementation is registered
@@ -125,6 +125,11 @@ implements Contexts.Provider, WSTransfer<Comm>, Transfer {
         LoadJSON.extractJSON(obj, props, values);
     }
 
+    @Override
+    public void extract(Object[] objs, String[] props, Object[] values) {
+        LoadJSON.extractJSON(objs, props, values);
+    }
+
     @Override
     public Object toJSON(InputStream is) throws IOException {
         return LoadJSON.parse(is);
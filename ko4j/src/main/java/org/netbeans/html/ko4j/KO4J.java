@@ -72,6 +72,12 @@ import org.openide.util.lookup.ServiceProvider;
  *   subprotocol.
  * </li>
  * </ul>
+ * <p>
+ * Models with many properties (sixteen or more by default, configurable
+ * by the <code>ko4j.lazy</code> system property, <code>-1</code> disables
+ * it) are bound lazily: the knockout.js observable for a property
+ * is created and its value obtained only when the page reads
+ * the property for the first time.
  *
  * @author Jaroslav Tulach
  * @since 0.7
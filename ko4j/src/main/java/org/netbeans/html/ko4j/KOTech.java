@@ -57,9 +57,18 @@ import static org.netbeans.html.ko4j.KO4J.LOG;
  */
 @Contexts.Id("ko4j")
 final class KOTech
-implements Technology.BatchCopy<Object>, Technology.ValueMutated<Object>, Technology.ApplyId<Object> {
-    private Object[] jsObjects;
-    private int jsIndex;
+implements Technology.BatchCopy<Object>, Technology.ValueMutated<Object>, Technology.ApplyId<Object>,
+    Technology.ArrayMutated<Object> {
+    /** models with at least this number of properties are bound lazily */
+    private static final int LAZY = Integer.getInteger("ko4j.lazy", 16); // NOI18N
+    /** notifications between two attempts to clean collected models */
+    private static final int CLEAN_EVERY = 64;
+    private static final int MIN_BATCH = 16;
+    private static final int MAX_BATCH = 512;
+    private Object[] pool;
+    private int poolSize;
+    private int batch = MIN_BATCH;
+    private int notifications;
 
     public KOTech() {
     }
@@ -73,12 +82,18 @@ implements Technology.BatchCopy<Object>, Technology.ValueMutated<Object>, Techno
         String[] propNames = new String[propArr.length];
         Number[] propInfo = new Number[propArr.length];
         Object[] propValues = new Object[propArr.length];
+        final boolean lazy = LAZY >= 0 && propArr.length >= LAZY;
         for (int i = 0; i < propNames.length; i++) {
             propNames[i] = propArr[i].getPropertyName();
             int info =
                 (propArr[i].isReadOnly() ? 1 : 0) +
-                (propArr[i].isConstant()? 2 : 0);
+                (propArr[i].isConstant()? 2 : 0) +
+                (lazy ? 4 : 0);
             propInfo[i] = info;
+            if (lazy) {
+                // fetched when knockout.js first reads the property
+                continue;
+            }
             Object value = propArr[i].getValue();
             if (value instanceof Enum) {
                 value = value.toString();
@@ -89,6 +104,7 @@ implements Technology.BatchCopy<Object>, Technology.ValueMutated<Object>, Techno
         for (int i = 0; i < funcNames.length; i++) {
             funcNames[i] = funcArr[i].getFunctionName();
         }
+        Knockout.cleanUp();
         Object ret = getJSObject();
         Knockout newKO = new Knockout(model, ret, propArr, funcArr);
         if (ko != null) {
@@ -101,21 +117,30 @@ implements Technology.BatchCopy<Object>, Technology.ValueMutated<Object>, Techno
         return ret;
     }
     
-    private Object getJSObject() {
-        int len = 64;
-        if (jsObjects != null && jsIndex < (len = jsObjects.length)) {
-            Object ret = jsObjects[jsIndex];
-            jsObjects[jsIndex] = null;
-            jsIndex++;
-            return ret;
+    private void cleanUp() {
+        if (++notifications >= CLEAN_EVERY) {
+            notifications = 0;
+            Knockout.cleanUp();
         }
-        jsObjects = Knockout.allocJS(len * 2);
-        jsIndex = 1;
-        Object ret = jsObjects[0];
-        jsObjects[0] = null;
+    }
+
+    /** Obtains a JavaScript object to wrap a model. Takes one from the
+     * pool of preallocated objects, if there is any. Otherwise allocates
+     * a new batch, twice as big as the previous one, up to {@link #MAX_BATCH}.
+     * Objects of collected models are never put back to the pool, as
+     * JavaScript code may still hold a reference to them.
+     */
+    private synchronized Object getJSObject() {
+        if (poolSize == 0) {
+            pool = Knockout.allocJS(batch);
+            poolSize = pool.length;
+            batch = Math.min(batch * 2, MAX_BATCH);
+        }
+        Object ret = pool[--poolSize];
+        pool[poolSize] = null;
         return ret;
     }
-    
+
     @Override
     public Object wrapModel(Object model) {
         throw new UnsupportedOperationException();
@@ -128,19 +153,30 @@ implements Technology.BatchCopy<Object>, Technology.ValueMutated<Object>, Techno
 
     @Override
     public void valueHasMutated(Object data, String propertyName) {
-        Knockout.cleanUp();
+        cleanUp();
         Knockout.valueHasMutated(data, propertyName, null, null);
     }
     
     @Override
     public void valueHasMutated(Object data, String propertyName, Object oldValue, Object newValue) {
-        Knockout.cleanUp();
+        cleanUp();
         if (newValue instanceof Enum) {
             newValue = newValue.toString();
         }
         Knockout.valueHasMutated(data, propertyName, oldValue, newValue);
     }
 
+    @Override
+    public void arrayMutated(Object data, String propertyName, int index, int removed, Object[] inserted) {
+        cleanUp();
+        for (int i = 0; i < inserted.length; i++) {
+            if (inserted[i] instanceof Enum) {
+                inserted[i] = inserted[i].toString();
+            }
+        }
+        Knockout.arrayMutated(data, propertyName, index, removed, inserted);
+    }
+
     @Override
     public void expose(FunctionBinding fb, Object model, Object d) {
         throw new UnsupportedOperationException();
@@ -46,6 +46,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.List;
 import org.netbeans.html.context.spi.Contexts;
@@ -61,7 +62,7 @@ import org.netbeans.html.json.spi.Transfer;
  */
 @Contexts.Id("xhr")
 final class KOTransfer
-implements Transfer {
+implements Transfer.BatchExtract {
     KOTransfer() {
     }
 
@@ -73,6 +74,19 @@ implements Transfer {
         LoadJSON.extractJSON(obj, props, values);
     }
 
+    @Override
+    public void extract(Object[] objs, String[] props, Object[] values) {
+        Object[] arr = new Object[objs.length];
+        for (int i = 0; i < objs.length; i++) {
+            Object o = objs[i];
+            if (o instanceof JSObjToStr) {
+                o = ((JSObjToStr)o).obj;
+            }
+            arr[i] = o;
+        }
+        LoadJSON.extractJSON(arr, props, values);
+    }
+
     @Override
     public void loadJSON(final JSONCall call) {
         if (call.isJSONP()) {
@@ -117,16 +131,40 @@ implements Transfer {
 
     @Override
     public Object toJSON(InputStream is) throws IOException {
-        StringBuilder sb = new StringBuilder();
-        InputStreamReader r = new InputStreamReader(is);
-        for (;;) {
-            int ch = r.read();
-            if (ch == -1) {
+        Reader r = new InputStreamReader(is, "UTF-8");
+        char[] arr = new char[8192];
+        int len = fill(r, arr, 0);
+        if (len < arr.length) {
+            return LoadJSON.parse(new String(arr, 0, len));
+        }
+        // large input: pass it to the JavaScript side in chunks, so no
+        // single huge string crosses the bridge; the text is still joined
+        // and evaluated at once in JavaScript
+        Object chunks = null;
+        while (len > 0) {
+            int kept = 0;
+            if (len == arr.length && Character.isHighSurrogate(arr[len - 1])) {
+                // don't split a surrogate pair between two chunks
+                kept = 1;
+            }
+            chunks = LoadJSON.appendChunk(chunks, new String(arr, 0, len - kept));
+            if (kept == 1) {
+                arr[0] = arr[len - 1];
+            }
+            len = fill(r, arr, kept);
+        }
+        return LoadJSON.parseChunks(chunks);
+    }
+
+    private static int fill(Reader r, char[] arr, int len) throws IOException {
+        while (len < arr.length) {
+            int read = r.read(arr, len, arr.length - len);
+            if (read == -1) {
                 break;
             }
-            sb.append((char)ch);
+            len += read;
         }
-        return LoadJSON.parse(sb.toString());
+        return len;
     }
 
     static void notifySuccess(Object done, Object str, Object data) {
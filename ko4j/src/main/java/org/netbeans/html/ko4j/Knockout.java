@@ -44,9 +44,10 @@ package org.netbeans.html.ko4j;
 
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import net.java.html.js.JavaScriptBody;
 import net.java.html.js.JavaScriptResource;
 import net.java.html.json.Model;
@@ -65,7 +66,9 @@ import org.netbeans.html.json.spi.PropertyBinding;
 @JavaScriptResource("knockout-3.4.0.js")
 final class Knockout extends WeakReference<Object> {
     private static final ReferenceQueue<Object> QUEUE = new ReferenceQueue();
-    private static final Set<Knockout> active = Collections.synchronizedSet(new HashSet<Knockout>());
+    private static final Set<Knockout> active = Collections.newSetFromMap(new ConcurrentHashMap<Knockout, Boolean>());
+    /** maximal number of wrappers cleaned by one call to {@link #cleanUp()} */
+    private static final int CLEAN_BATCH = 256;
 
     @JavaScriptBody(args = {"object", "property"}, body = 
         "var ret;\n" + 
@@ -97,18 +100,30 @@ final class Knockout extends WeakReference<Object> {
         active.add(this);
     }
     
+    /** Cleans JavaScript objects of models that have been garbage
+     * collected. At most {@link #CLEAN_BATCH} objects are cleaned and
+     * all of them are passed to JavaScript at once.
+     */
     static void cleanUp() {
-        for (;;) {
+        Object[] arr = null;
+        int cnt = 0;
+        while (cnt < CLEAN_BATCH) {
             Knockout ko = (Knockout)QUEUE.poll();
             if (ko == null) {
-                return;
+                break;
             }
             active.remove(ko);
-            clean(ko.js);
+            if (arr == null) {
+                arr = new Object[CLEAN_BATCH];
+            }
+            arr[cnt++] = ko.js;
             ko.js = null;
             ko.props = null;
             ko.funcs = null;
         }
+        if (cnt > 0) {
+            clean(cnt == arr.length ? arr : Arrays.copyOf(arr, cnt));
+        }
     }
     
     final void hold() {
@@ -133,7 +148,8 @@ final class Knockout extends WeakReference<Object> {
     @JavaScriptBody(args = { "model", "prop", "oldValue", "newValue" }, 
         wait4js = false,
         body =
-          "if (model) {\n"
+          "var lazy = model ? Object['getOwnPropertyDescriptor'](model, prop) : null;\n"
+        + "if (model && !(lazy && lazy['get'])) {\n"
         + "  var koProp = model[prop];\n"
         + "  if (koProp) {\n"
         + "    var koFire = koProp['valueHasMutated'];\n"
@@ -151,6 +167,30 @@ final class Knockout extends WeakReference<Object> {
         Object model, String prop, Object oldValue, Object newValue
     );
 
+    @JavaScriptBody(args = { "model", "prop", "index", "removed", "inserted" },
+        wait4js = false,
+        body =
+          "var lazy = model ? Object['getOwnPropertyDescriptor'](model, prop) : null;\n"
+        + "if (model && !(lazy && lazy['get'])) {\n"
+        + "  var koProp = model[prop];\n"
+        + "  if (koProp) {\n"
+        + "    var koFire = koProp['valueHasMutated'];\n"
+        + "    if (koFire) {\n"
+        + "      var arr = koProp['peek']();\n"
+        + "      if (Object.prototype.toString.call(arr) === '[object Array]' && index + removed <= arr.length) {\n"
+        + "        arr['splice']['apply'](arr, [index, removed]['concat'](inserted));\n"
+        + "        koFire(arr);\n"
+        + "      } else {\n"
+        + "        koFire();\n"
+        + "      }\n"
+        + "    }\n"
+        + "  }\n"
+        + "}\n"
+    )
+    native static void arrayMutated(
+        Object model, String prop, int index, int removed, Object[] inserted
+    );
+
     @JavaScriptBody(args = { "id", "bindings" }, body = 
         "var d = window['document'];\n" +
         "var e = id ? d['getElementById'](id) : d['body'];\n" +
@@ -178,11 +218,11 @@ final class Knockout extends WeakReference<Object> {
         + "  if (r) try { var br = r.valueOf(); } catch (err) {}\n"
         + "  return br === undefined ? r: br;\n"
         + "}\n"
-        + "function koComputed(index, name, readOnly, value) {\n"
+        + "function koComputed(index, name, readOnly, value, lazy) {\n"
         + "  var orig = copyFrom ? copyFrom[name] : null;\n"
         + "  if (!ko['isObservable'](orig)) {\n"
         + "    orig = null;\n"
-        + "    var trigger = ko['observable']()['extend']({'notify':'always'});\n"
+        + "    var trigger = ko['observable']();\n"
         + "  } else {\n"
         + "    var trigger = orig;\n"
         + "  }\n"
@@ -195,17 +235,19 @@ final class Knockout extends WeakReference<Object> {
         + "      alert(\"Cannot call getValue on \" + self + \" prop: \" + name + \" error: \" + e);\n"
         + "    }\n"
         + "  }\n"
-        + "  var activeGetter = orig ? orig : function() { return value; };\n"
+        + "  var cached = value;\n"
+        + "  var valid = !lazy;\n"
         + "  var bnd = {\n"
         + "    'read': function() {\n"
         + "      trigger();\n"
         + "      if (orig) {\n"
-        + "        var r = orig();\n"
-        + "      } else {\n"
-        + "        var r = activeGetter();\n"
-        + "        activeGetter = realGetter;\n"
+        + "        return normalValue(orig());\n"
+        + "      }\n"
+        + "      if (!valid) {\n"
+        + "        cached = realGetter();\n"
+        + "        valid = true;\n"
         + "      }\n"
-        + "      return normalValue(r);;\n"
+        + "      return normalValue(cached);\n"
         + "    },\n"
         + "    'owner': ret\n"
         + "  };\n"
@@ -223,18 +265,52 @@ final class Knockout extends WeakReference<Object> {
         + "      orig.subscribe(write);\n"
         + "    }\n"
         + "  };\n"
-        + "  var cmpt = ko['computed'](bnd);\n"
+        + "  var cmpt = ko['pureComputed'](bnd);\n"
         + "  cmpt['valueHasMutated'] = function(val) {\n"
-        + "    if (arguments.length === 1) activeGetter = function() { return val; };\n"
-        + "    trigger(val);\n"
+        + "    if (orig) {\n"
+        + "      trigger(val);\n"
+        + "      return;\n"
+        + "    }\n"
+        + "    if (arguments.length === 1) {\n"
+        + "      if (valid && cached === val && (val === null || typeof val !== 'object')) return;\n"
+        + "      cached = val;\n"
+        + "      valid = true;\n"
+        + "    } else {\n"
+        + "      valid = false;\n"
+        + "    }\n"
+        + "    trigger['valueHasMutated']();\n"
         + "  };\n"
         + "  ret[name] = cmpt;\n"
+        + "  return cmpt;\n"
+        + "}\n"
+        + "function koDefine(name, value) {\n"
+        + "  Object.defineProperty(ret, name, {\n"
+        + "    'value' : value, 'writable' : true, 'configurable' : true, 'enumerable' : true\n"
+        + "  });\n"
+        + "  return value;\n"
+        + "}\n"
+        + "function koLazy(index, name, info) {\n"
+        + "  Object.defineProperty(ret, name, {\n"
+        + "    'get' : function() {\n"
+        + "      if ((info & 2) !== 0) {\n"
+        + "        var self = ret['ko4j'];\n"
+        + "        var v = self ? self.@org.netbeans.html.ko4j.Knockout::getValue(I)(index) : null;\n"
+        + "        return koDefine(name, normalValue(v));\n"
+        + "      }\n"
+        + "      return koDefine(name, koComputed(index, name, (info & 1) !== 0, null, true));\n"
+        + "    },\n"
+        + "    'set' : function(v) { koDefine(name, v); },\n"
+        + "    'configurable' : true, 'enumerable' : true\n"
+        + "  });\n"
         + "}\n"
         + "for (var i = 0; i < propNames.length; i++) {\n"
-        + "  if ((propInfo[i] & 2) !== 0) {\n"
+        + "  var orig = copyFrom ? copyFrom[propNames[i]] : null;\n"
+        + "  if ((propInfo[i] & 4) !== 0 && !ko['isObservable'](orig)) {\n"
+        + "    koLazy(i, propNames[i], propInfo[i]);\n"
+        + "  } else if ((propInfo[i] & 2) !== 0) {\n"
         + "    ret[propNames[i]] = normalValue(propValues[i]);\n"
         + "  } else {\n"
-        + "    koComputed(i, propNames[i], (propInfo[i] & 1) !== 0, propValues[i]);\n"
+        + "    koComputed(i, propNames[i], (propInfo[i] & 1) !== 0, propValues[i], false);\n"
         + "  }\n"
         + "}\n"
         + "function koExpose(index, name) {\n"
@@ -255,14 +331,16 @@ final class Knockout extends WeakReference<Object> {
         String[] funcNames
     );
     
-    @JavaScriptBody(args = { "js" }, wait4js = false, body = 
-        "delete js['ko4j'];\n" +
-        "for (var p in js) {\n" +
-        "  delete js[p];\n" +
-        "};\n" +
-        "\n"
+    @JavaScriptBody(args = { "arr" }, wait4js = false, body =
+        "for (var i = 0; i < arr.length; i++) {\n" +
+        "  var js = arr[i];\n" +
+        "  delete js['ko4j'];\n" +
+        "  for (var p in js) {\n" +
+        "    delete js[p];\n" +
+        "  };\n" +
+        "}\n"
     )
-    private static native void clean(Object js);
+    private static native void clean(Object[] arr);
     
     @JavaScriptBody(args = { "o" }, body = "return o['ko4j'] ? o['ko4j'] : o;")
     private static native Object toModelImpl(Object wrapper);
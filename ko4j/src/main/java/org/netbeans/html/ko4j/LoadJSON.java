@@ -83,6 +83,33 @@ final class LoadJSON {
         return s;
     }
 
+    /** Collects a part of JSON text on the JavaScript side.
+     *
+     * @param chunks previously collected parts or <code>null</code>
+     * @param s next part of the text
+     * @return the collected parts
+     */
+    @JavaScriptBody(args = {"chunks", "s"}, body = ""
+        + "if (!chunks) chunks = { 'parts' : [] };\n"
+        + "chunks.parts.push(s);\n"
+        + "return chunks;\n"
+    )
+    static Object appendChunk(Object chunks, String s) {
+        return null;
+    }
+
+    /** Joins the collected parts and evaluates them as a single text.
+     * Parsing isn't incremental, only the size of the individual strings
+     * sent from Java to JavaScript is limited.
+     *
+     * @param chunks parts collected by {@link #appendChunk}
+     * @return the parsed JSON
+     */
+    @JavaScriptBody(args = {"chunks"}, body = "return eval('(' + chunks.parts.join('') + ')');")
+    static Object parseChunks(Object chunks) {
+        return chunks;
+    }
+
     @JavaScriptBody(args = {"url", "done", "method", "data", "hp"}, javacall = true, body = ""
         + "var request = new XMLHttpRequest();\n"
         + "if (!method) method = 'GET';\n"
@@ -130,9 +157,64 @@ final class LoadJSON {
     }
 
     static void extractJSON(Object jsonObject, String[] props, Object[] values) {
+        Object[] arr = extractProperties(new Object[] { jsonObject }, props);
+        if (arr != null && arr.length == props.length) {
+            System.arraycopy(arr, 0, values, 0, props.length);
+            return;
+        }
         for (int i = 0; i < props.length; i++) {
             values[i] = Knockout.getProperty(jsonObject, props[i]);
         }
     }
 
+    static void extractJSON(Object[] objs, String[] props, Object[] values) {
+        Object[] arr = extractProperties(objs, props);
+        if (arr != null && arr.length == values.length) {
+            System.arraycopy(arr, 0, values, 0, values.length);
+            return;
+        }
+        Object[] row = new Object[props.length];
+        for (int i = 0; i < objs.length; i++) {
+            extractJSON(objs[i], props, row);
+            System.arraycopy(row, 0, values, i * props.length, props.length);
+        }
+    }
+
+    /** Reads all the properties of all the objects in a single call.
+     * The extractor function for each list of property names is created
+     * only once and then kept in the presenter, so reading objects of the
+     * same model type reuses it. The values are returned as a flat array
+     * with <code>props.length</code> values for each of the objects.
+     */
+    @JavaScriptBody(args = {"objects", "props"}, body =
+        "var g = (function() { return this; })();\n" +
+        "var cache = g['ko4jExtractors'];\n" +
+        "if (!cache) cache = g['ko4jExtractors'] = {};\n" +
+        "var key = props.join('\\u0000');\n" +
+        "var fn = cache[key];\n" +
+        "if (!fn) {\n" +
+        "  fn = (function(names) {\n" +
+        "    var cnt = names.length;\n" +
+        "    return function(o, ret, at) {\n" +
+        "      for (var i = 0; i < cnt; i++) {\n" +
+        "        var v;\n" +
+        "        if (names[i] === null) v = o;\n" +
+        "        else if (o === null) v = null;\n" +
+        "        else v = o[names[i]];\n" +
+        "        ret[at + i] = v ? ko.utils.unwrapObservable(v) : null;\n" +
+        "      }\n" +
+        "    };\n" +
+        "  })(props.slice(0));\n" +
+        "  cache[key] = fn;\n" +
+        "}\n" +
+        "var ret = new Array(objects.length * props.length);\n" +
+        "for (var j = 0; j < objects.length; j++) {\n" +
+        "  fn(objects[j], ret, j * props.length);\n" +
+        "}\n" +
+        "return ret;\n"
+    )
+    private static Object[] extractProperties(Object[] objects, String[] props) {
+        return null;
+    }
+
 }
@@ -0,0 +1,116 @@
+/**
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS HEADER.
+ *
+ * Copyright 2013-2014 Oracle and/or its affiliates. All rights reserved.
+ *
+ * Oracle and Java are registered trademarks of Oracle and/or its affiliates.
+ * Other names may be trademarks of their respective owners.
+ *
+ * The contents of this file are subject to the terms of either the GNU
+ * General Public License Version 2 only ("GPL") or the Common
+ * Development and Distribution License("CDDL") (collectively, the
+ * "License"). You may not use this file except in compliance with the
+ * License. You can obtain a copy of the License at
+ * http://www.netbeans.org/cddl-gplv2.html
+ * or nbbuild/licenses/CDDL-GPL-2-CP. See the License for the
+ * specific language governing permissions and limitations under the
+ * License.  When distributing the software, include this License Header
+ * Notice in each file and include the License file at
+ * nbbuild/licenses/CDDL-GPL-2-CP.  Oracle designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Oracle in the GPL Version 2 section of the License file that
+ * accompanied this code. If applicable, add the following below the
+ * License Header, with the fields enclosed by brackets [] replaced by
+ * your own identifying information:
+ * "Portions Copyrighted [year] [name of copyright owner]"
+ *
+ * Contributor(s):
+ *
+ * The Original Software is NetBeans. The Initial Developer of the Original
+ * Software is Oracle. Portions Copyright 2013-2016 Oracle. All Rights Reserved.
+ *
+ * If you wish your version of this file to be governed by only the CDDL
+ * or only the GPL Version 2, indicate your decision by adding
+ * "[Contributor] elects to include this software in this distribution
+ * under the [CDDL or GPL Version 2] license." If you do not indicate a
+ * single choice of license, a recipient has the option to distribute
+ * your version of this file under either the CDDL, the GPL Version 2 or
+ * to extend the choice of license to its licensees as provided above.
+ * However, if you add GPL Version 2 code and therefore, elected the GPL
+ * Version 2 license, then the option applies only if the new code is
+ * made subject to such option by the copyright holder.
+ */
+package org.netbeans.html.ko4j;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import net.java.html.js.JavaScriptBody;
+import net.java.html.json.Model;
+import net.java.html.json.Models;
+import net.java.html.json.Property;
+import org.netbeans.html.json.tck.KOTest;
+
+/** Checks JavaScript wrappers of collected models are cleaned.
+ *
+ * @author Jaroslav Tulach
+ */
+@Model(className = "CleanUpItem", properties = {
+    @Property(name = "name", type = String.class)
+})
+public class CleanUpCheck {
+    @KOTest public void collectedModelsAreCleanedInBatches() throws Exception {
+        // more than Knockout.CLEAN_BATCH wrappers
+        final int cnt = 600;
+        Object[] raws = new Object[cnt];
+        Reference<?>[] refs = new Reference<?>[cnt];
+        for (int i = 0; i < cnt; i++) {
+            CleanUpItem item = new CleanUpItem("item" + i);
+            raws[i] = Models.toRaw(item);
+            refs[i] = new WeakReference<Object>(item);
+        }
+        assert "item7".equals(name(raws[7])) : "Wrapper shows the value: " + name(raws[7]);
+        for (Reference<?> ref : refs) {
+            assertGC(ref);
+        }
+
+        int rounds = 0;
+        int cleaned = 0;
+        while (cleaned < cnt) {
+            assert rounds++ < 100 : "Only " + cleaned + " wrappers cleaned";
+            // each new wrapper cleans a batch of collected ones
+            Models.toRaw(new CleanUpItem("new"));
+            Thread.sleep(10);
+            cleaned = 0;
+            for (Object raw : raws) {
+                if (!isWrapper(raw)) {
+                    cleaned++;
+                }
+            }
+        }
+        for (int i = 0; i < cnt; i++) {
+            assert name(raws[i]) == null : "Wrapper " + i + " is empty: " + name(raws[i]);
+        }
+    }
+
+    private static void assertGC(Reference<?> ref) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (ref.get() == null) {
+                return;
+            }
+            System.gc();
+            System.runFinalization();
+            Thread.sleep(10);
+        }
+        assert false : "Model has not been collected";
+    }
+
+    @JavaScriptBody(args = { "o" }, body = "return o['ko4j'] ? true : false;")
+    private static native boolean isWrapper(Object o);
+
+    @JavaScriptBody(args = { "o" }, body =
+        "var p = o['name'];\n"
+      + "if (typeof p === 'function') p = p();\n"
+      + "return p === undefined ? null : p;\n"
+    )
+    private static native String name(Object o);
+}
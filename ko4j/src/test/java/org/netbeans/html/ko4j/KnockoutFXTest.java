@@ -114,6 +114,8 @@ public final class KnockoutFXTest extends KnockoutTCK {
         }
         Class<?> c = Class.forName(LessCallbacksCheck.class.getName(), true, l);
         seekKOTests(c, res);
+        c = Class.forName(CleanUpCheck.class.getName(), true, l);
+        seekKOTests(c, res);
         return res.toArray();
     }
 
@@ -266,9 +266,72 @@ final class LoadJSON implements Runnable {
         if (js instanceof JSObjToStr) {
             js = ((JSObjToStr)js).obj;
         }
+        Object[] arr = extractProperties(new Object[] { js }, props);
+        if (arr != null && arr.length == props.length) {
+            System.arraycopy(arr, 0, values, 0, props.length);
+            return;
+        }
         for (int i = 0; i < props.length; i++) {
             values[i] = getProperty(js, props[i]);
         }
     }
 
+    static void extractJSON(Object[] objs, String[] props, Object[] values) {
+        Object[] unwrapped = new Object[objs.length];
+        for (int i = 0; i < objs.length; i++) {
+            Object o = objs[i];
+            if (o instanceof JSObjToStr) {
+                o = ((JSObjToStr)o).obj;
+            }
+            unwrapped[i] = o;
+        }
+        Object[] arr = extractProperties(unwrapped, props);
+        if (arr != null && arr.length == values.length) {
+            System.arraycopy(arr, 0, values, 0, values.length);
+            return;
+        }
+        Object[] row = new Object[props.length];
+        for (int i = 0; i < unwrapped.length; i++) {
+            extractJSON(unwrapped[i], props, row);
+            System.arraycopy(row, 0, values, i * props.length, props.length);
+        }
+    }
+
+    /** Reads all the properties of all the objects in a single call.
+     * The extractor function for each list of property names is created
+     * only once and then kept in the presenter, so reading objects of the
+     * same model type reuses it. The values are returned as a flat array
+     * with <code>props.length</code> values for each of the objects.
+     */
+    @JavaScriptBody(args = {"objects", "props"}, body =
+        "var g = (function() { return this; })();\n" +
+        "var cache = g['xhr4jExtractors'];\n" +
+        "if (!cache) cache = g['xhr4jExtractors'] = {};\n" +
+        "var key = props.join('\\u0000');\n" +
+        "var fn = cache[key];\n" +
+        "if (!fn) {\n" +
+        "  fn = (function(names) {\n" +
+        "    var cnt = names.length;\n" +
+        "    return function(o, ret, at) {\n" +
+        "      for (var i = 0; i < cnt; i++) {\n" +
+        "        var v;\n" +
+        "        if (names[i] === null) v = o;\n" +
+        "        else if (o === null) v = null;\n" +
+        "        else v = o[names[i]];\n" +
+        "        ret[at + i] = v ? (typeof ko === 'undefined' ? v : ko.utils.unwrapObservable(v)) : null;\n" +
+        "      }\n" +
+        "    };\n" +
+        "  })(props.slice(0));\n" +
+        "  cache[key] = fn;\n" +
+        "}\n" +
+        "var ret = new Array(objects.length * props.length);\n" +
+        "for (var j = 0; j < objects.length; j++) {\n" +
+        "  fn(objects[j], ret, j * props.length);\n" +
+        "}\n" +
+        "return ret;\n"
+    )
+    private static Object[] extractProperties(Object[] objects, String[] props) {
+        return null;
+    }
+
 }
@@ -65,7 +65,7 @@ import org.openide.util.lookup.ServiceProvider;
 @Contexts.Id("xhr4j")
 @ServiceProvider(service = Contexts.Provider.class)
 public final class XmlHttpResourceContext
-implements Contexts.Provider, Transfer {
+implements Contexts.Provider, Transfer.BatchExtract {
     @Override
     public void fillContext(Contexts.Builder context, Class<?> requestor) {
         context.register(Transfer.class, this, 50);
@@ -76,6 +76,11 @@ implements Contexts.Provider, Transfer {
         LoadJSON.extractJSON(obj, props, values);
     }
 
+    @Override
+    public void extract(Object[] objs, String[] props, Object[] values) {
+        LoadJSON.extractJSON(objs, props, values);
+    }
+
     @Override
     public Object toJSON(InputStream is) throws IOException {
         return LoadJSON.parse(LoadJSON.readStream(is));